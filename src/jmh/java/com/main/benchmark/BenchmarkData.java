@@ -0,0 +1,51 @@
+package com.main.benchmark;
+
+import com.main.classes.ValueModifier;
+
+/**
+ * 基准测试共用的修改器数据
+ */
+final class BenchmarkData {
+    // 修改器按编号轮流使用的标签组数量
+    static final int TAG_GROUPS = 10;
+
+    private BenchmarkData() {
+    }
+
+    static String tagOf(int index) {
+        return "buff.group" + (index % TAG_GROUPS);
+    }
+
+    /**
+     * 添加count个修改器：以加法、乘法、基础值乘法为主，夹杂少量不会生效的上下限
+     * @param value 目标
+     * @param count 修改器数量
+     */
+    static void populate(ValueModifier value, int count) {
+        for (int i = 0; i < count; i++) {
+            addModifier(value, i);
+        }
+    }
+
+    static void addModifier(ValueModifier value, int index) {
+        String id = "mod" + index;
+        String tag = tagOf(index);
+        int priority = ValueModifier.PRIORITY_HIGHEST + (index % 5) * 100;
+        if (index % 50 == 49) {
+            value.addMinLimitModifier(id, 0, tag, priority);
+        } else if (index % 50 == 24) {
+            value.addMaxLimitModifier(id, 1e9, tag, priority);
+        } else {
+            switch (index % 3) {
+                case 0:
+                    value.addAdditiveModifier(id, 1 + index % 7, tag, priority);
+                    break;
+                case 1:
+                    value.addMultiplicativeModifier(id, 0.001 * (index % 11), tag, priority);
+                    break;
+                default:
+                    value.addBaseMultiplicativeModifier(id, 0.0005 * (index % 13), tag, priority);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.main.benchmark;
+
+import com.main.pets.Attributes;
+import com.main.pets.Pet;
+import com.main.pets.SpeciesRegistry;
+import com.main.skills.Skill;
+import com.main.skills.SkillLibrary;
+import com.main.storage.PetDTO;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量读档：把一批PetDTO恢复为宠物
+ * reflective为原来的读档方式（反射调用构造器按等级初始化，再用存档属性覆盖），作为对照；
+ * registry通过SpeciesRegistry直接按存档数据恢复。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetLoadBenchmark {
+
+    @Param({"100", "1000"})
+    public int petCount;
+
+    private List<PetDTO> dtos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] types = SpeciesRegistry.getTypes().toArray(new String[0]);
+        Attributes[] attributes = Attributes.values();
+        dtos = new ArrayList<>(petCount);
+        for (int i = 0; i < petCount; i++) {
+            LinkedHashSet<Skill> skills = new LinkedHashSet<>();
+            skills.add(SkillLibrary.skillBasicAttack);
+            Pet pet = SpeciesRegistry.create(types[i % types.length], 1 + i % 50, attributes[i % attributes.length], skills);
+            pet.removeHP(i % 100);
+            BenchmarkData.populate(pet.getStat().getBaseAttack(), i % 5);
+            dtos.add(new PetDTO(pet));
+        }
+    }
+
+    @Benchmark
+    public void registry(Blackhole blackhole) {
+        for (PetDTO dto : dtos) {
+            blackhole.consume(dto.toPet());
+        }
+    }
+
+    @Benchmark
+    public void reflective(Blackhole blackhole) throws ReflectiveOperationException {
+        for (PetDTO dto : dtos) {
+            Class<?> clazz = Class.forName("com.main.pets." + dto.getType());
+            Constructor<?> constructor = clazz.getConstructor(int.class, Attributes.class, LinkedHashSet.class);
+            Pet pet = (Pet) constructor.newInstance(dto.getLevel(), dto.getAttributes(), dto.toSkills());
+            pet.setLevel(dto.getLevel());
+            pet.setExperience(dto.getExperience());
+            pet.setStatue(Pet.Statue.valueOf(dto.getStatue()));
+            pet.setStat(dto.getStat().toPetStat());
+            blackhole.consume(pet);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.main.benchmark;
+
+import com.main.classes.ResourceValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 资源值的增减，例如战斗中每次扣血和回血
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceValueBenchmark {
+
+    @Param({"0", "10", "100", "1000"})
+    public int modifierCount;
+
+    private ResourceValue resource;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        resource = new ResourceValue(1000);
+        BenchmarkData.populate(resource.getBaseMaxValue(), modifierCount);
+        resource.refill();
+    }
+
+    @Benchmark
+    public boolean removeAndAddValue() {
+        resource.removeValue(5);
+        return resource.addValue(5);
+    }
+}
@@ -0,0 +1,73 @@
+package com.main.benchmark;
+
+import com.main.classes.ValueModifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ValueModifier的读取与修改：最终值读取、存在N个自动更新的ModifiedValue时添加/移除修改器、按标签移除
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueModifierBenchmark {
+
+    @Param({"0", "10", "100", "1000"})
+    public int modifierCount;
+
+    @Param({"1", "100"})
+    public int liveValues;
+
+    private ValueModifier value;
+    // 保持强引用，使这些ModifiedValue在测量期间一直接收更新
+    private final List<ValueModifier.ModifiedValue> live = new ArrayList<>();
+    // 第0个标签组中修改器的编号，用于移除后恢复
+    private int[] groupIndexes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        value = new ValueModifier(100);
+        BenchmarkData.populate(value, modifierCount);
+        live.clear();
+        for (int i = 0; i < liveValues; i++) {
+            // 一半订阅全部修改器，一半只订阅某个标签组
+            live.add(i % 2 == 0 ? value.createModifiedValue() : value.createModifiedValueForTag(BenchmarkData.tagOf(i)));
+        }
+        groupIndexes = new int[(modifierCount + BenchmarkData.TAG_GROUPS - 1) / BenchmarkData.TAG_GROUPS];
+        for (int i = 0; i < groupIndexes.length; i++) {
+            groupIndexes[i] = i * BenchmarkData.TAG_GROUPS;
+        }
+    }
+
+    @Benchmark
+    public double getFinalValue() {
+        return value.getFinalValue();
+    }
+
+    @Benchmark
+    public double addRemoveModifier() {
+        value.addAdditiveModifier("bench", 1, "bench", ValueModifier.PRIORITY_NORMAL);
+        value.removeModifier("bench");
+        return live.get(0).getValue();
+    }
+
+    /**
+     * 移除一个标签组（约1/10的修改器），再在一次批量修改中恢复
+     */
+    @Benchmark
+    public int removeTagAndRestore() {
+        int removed = value.removeModifiersByTag(BenchmarkData.tagOf(0));
+        try (ValueModifier.Transaction ignored = value.beginBatch()) {
+            for (int index : groupIndexes) {
+                BenchmarkData.addModifier(value, index);
+            }
+        }
+        return removed;
+    }
+}
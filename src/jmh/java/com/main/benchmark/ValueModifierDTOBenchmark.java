@@ -0,0 +1,47 @@
+package com.main.benchmark;
+
+import com.main.classes.ValueModifier;
+import com.main.storage.ValueModifierDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ValueModifier与ValueModifierDTO之间的转换，即存档和读档时每个属性的开销
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueModifierDTOBenchmark {
+
+    @Param({"0", "10", "100", "1000"})
+    public int modifierCount;
+
+    private ValueModifier value;
+    private ValueModifierDTO dto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        value = new ValueModifier(100);
+        BenchmarkData.populate(value, modifierCount);
+        dto = new ValueModifierDTO(value);
+    }
+
+    @Benchmark
+    public ValueModifierDTO toDTO() {
+        return new ValueModifierDTO(value);
+    }
+
+    @Benchmark
+    public ValueModifier fromDTO() {
+        return dto.toValueModifier();
+    }
+
+    @Benchmark
+    public ValueModifier roundTrip() {
+        return new ValueModifierDTO(value).toValueModifier();
+    }
+}
@@ -0,0 +1,174 @@
+package com.main.classes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 线程安全的资源值，用于多个线程同时结算伤害或治疗（如范围攻击、其他线程中的持续伤害）
+ * 当前值以double的位模式保存，每次增减在CAS循环中完成"读取-计算-限制到[0, 当前最大值]-写回"，
+ * 并发操作不会丢失更新；返回的结果（是否见底、是否达到上限）针对本次操作实际看到的旧值，而不是之后被其他线程改过的值。
+ * 最大值由ConcurrentValueModifier管理，读取最大值不加锁。
+ */
+public class AtomicResourceValue {
+    private static final VarHandle VALUE_BITS;
+
+    static {
+        try {
+            VALUE_BITS = MethodHandles.lookup().findVarHandle(AtomicResourceValue.class, "valueBits", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ConcurrentValueModifier baseMaxValue;
+    // 当前值的位模式，只通过VALUE_BITS修改
+    private volatile long valueBits;
+
+    /**
+     * 创建资源值，当前值为最大值
+     * @param baseValue 基础最大值
+     */
+    public AtomicResourceValue(double baseValue) {
+        this(new ConcurrentValueModifier(baseValue));
+    }
+
+    private AtomicResourceValue(ConcurrentValueModifier baseMaxValue) {
+        this(baseMaxValue, baseMaxValue.getFinalValue());
+    }
+
+    /**
+     * 用已有的最大值和当前值创建资源值
+     * @param baseMaxValue 最大值
+     * @param currentValue 当前值
+     */
+    public AtomicResourceValue(ConcurrentValueModifier baseMaxValue, double currentValue) {
+        this.baseMaxValue = baseMaxValue;
+        this.valueBits = Double.doubleToRawLongBits(currentValue);
+    }
+
+    /**
+     * 获取当前值
+     * @return 当前值
+     */
+    public double getCurrentValue() {
+        return Double.longBitsToDouble(valueBits);
+    }
+
+    /**
+     * 获取当前的最大值（包含所有修正器影响后的值）
+     * @return 当前最大值
+     */
+    public double getCurrentMaxValue() {
+        return baseMaxValue.getFinalValue();
+    }
+
+    /**
+     * 获取基础最大值（不含任何修正器影响）
+     * @return 基础最大值
+     */
+    public double getBaseValue() {
+        return baseMaxValue.getCurrentBaseValue();
+    }
+
+    public ConcurrentValueModifier getBaseMaxValue() {
+        return baseMaxValue;
+    }
+
+    /**
+     * 增加资源值，不超过当前最大值
+     * @param addValue 增加量
+     * @return 未达到上限时返回true，本次增加被最大值截断或恰好到达最大值时返回false
+     */
+    public boolean addValue(double addValue) {
+        while (true) {
+            long bits = valueBits;
+            double target = Double.longBitsToDouble(bits) + addValue;
+            double max = getCurrentMaxValue();
+            double next = target < max ? target : max;
+            if (VALUE_BITS.compareAndSet(this, bits, Double.doubleToRawLongBits(next))) {
+                return target < max;
+            }
+        }
+    }
+
+    /**
+     * 减少资源值，不低于0
+     * @param removeValue 减少量
+     * @return 减少后仍大于0时返回true，本次减少使资源见底时返回false
+     */
+    public boolean removeValue(double removeValue) {
+        while (true) {
+            long bits = valueBits;
+            double target = Double.longBitsToDouble(bits) - removeValue;
+            double next = target > 0 ? target : 0;
+            if (VALUE_BITS.compareAndSet(this, bits, Double.doubleToRawLongBits(next))) {
+                return target > 0;
+            }
+        }
+    }
+
+    /**
+     * 按增量修改资源值，结果限制在[0, 当前最大值]内
+     * @param delta 增量，负数表示减少
+     * @return 实际生效的增量
+     */
+    public double applyDelta(double delta) {
+        while (true) {
+            long bits = valueBits;
+            double old = Double.longBitsToDouble(bits);
+            double next = clamp(old + delta, getCurrentMaxValue());
+            if (VALUE_BITS.compareAndSet(this, bits, Double.doubleToRawLongBits(next))) {
+                return next - old;
+            }
+        }
+    }
+
+    /**
+     * 设置资源值，结果限制在[0, 当前最大值]内
+     * @param value 新值
+     * @return 之前的值
+     */
+    public double getAndSet(double value) {
+        while (true) {
+            long bits = valueBits;
+            double next = clamp(value, getCurrentMaxValue());
+            if (VALUE_BITS.compareAndSet(this, bits, Double.doubleToRawLongBits(next))) {
+                return Double.longBitsToDouble(bits);
+            }
+        }
+    }
+
+    /**
+     * 当前值等于expected时设置为newValue，按位比较
+     * @param expected 预期的当前值
+     * @param newValue 新值，不做限制
+     * @return 是否设置成功
+     */
+    public boolean compareAndSet(double expected, double newValue) {
+        return VALUE_BITS.compareAndSet(this, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(newValue));
+    }
+
+    // 将当前值恢复到最大值（如满血状态）。
+    public void refill() {
+        valueBits = Double.doubleToRawLongBits(getCurrentMaxValue());
+    }
+
+    // 检查资源是否足够减少指定的值。
+    public boolean canRemoveValue(double removeValue) {
+        return getCurrentValue() - removeValue >= 0;
+    }
+
+    private static double clamp(double value, double max) {
+        if (value > max) {
+            return max;
+        }
+        return value > 0 ? value : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(32);
+        ValueFormatter.appendFixed(sb, getCurrentValue(), 2).append('/');
+        return ValueFormatter.appendFixed(sb, getCurrentMaxValue(), 2).toString();
+    }
+}
@@ -0,0 +1,431 @@
+package com.main.classes;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 线程安全的ValueModifier，公开接口与ValueModifier相同
+ * 所有修改操作在同一把可重入锁下执行，每次提交修改（批量修改中为最外层提交）后发布一份不可变的值快照。
+ * 其他线程读取最终值、当前基础值和修改代数时只读取快照，不会被写入方阻塞；
+ * 持有锁的线程（例如批量修改进行中）读取到的始终是最新值。
+ * 其余查询操作需要遍历修改器，在锁内执行。
+ * 批量修改事务必须在开始它的线程中关闭；多个实例一起批量修改时按创建顺序加锁，不会因传入顺序不同而死锁。
+ * 修改器优先级请通过setModifierPriority修改。
+ * ModifiedValue在读取方线程按需计算时需要锁，因此只支持立即更新模式。
+ * 修改器变化的订阅者在提交修改的线程中持有锁时回调。
+ * 不能加入StatGraph：依赖图的传播会在持有本实例锁时修改其他属性。
+ */
+public class ConcurrentValueModifier extends ValueModifier {
+    // 多个实例一起批量修改时的全局加锁顺序
+    private static final AtomicLong LOCK_SEQUENCE = new AtomicLong();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long lockOrder = LOCK_SEQUENCE.incrementAndGet();
+    private volatile Snapshot snapshot;
+
+    /**
+     * 已提交修改的不可变快照
+     */
+    private static final class Snapshot {
+        private final double baseValue;
+        private final double finalValue;
+        private final long generation;
+
+        private Snapshot(double baseValue, double finalValue, long generation) {
+            this.baseValue = baseValue;
+            this.finalValue = finalValue;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * 创建一个新的ConcurrentValueModifier实例
+     * @param initialValue 初始基础值
+     */
+    public ConcurrentValueModifier(double initialValue) {
+        super(initialValue);
+        publish();
+    }
+
+    /**
+     * 创建一个新的ConcurrentValueModifier实例
+     * @param initialValue 初始基础值
+     */
+    public ConcurrentValueModifier(int initialValue) {
+        this((double) initialValue);
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(super.getCurrentBaseValue(), super.getFinalValue(), super.getGeneration());
+    }
+
+    @Override
+    void onChangesCommitted() {
+        publish();
+        super.onChangesCommitted();
+    }
+
+    // ==================== 无阻塞读取 ====================
+
+    @Override
+    public double getFinalValue() {
+        if (lock.isHeldByCurrentThread()) {
+            return super.getFinalValue();
+        }
+        return snapshot.finalValue;
+    }
+
+    @Override
+    public double getCurrentBaseValue() {
+        if (lock.isHeldByCurrentThread()) {
+            return super.getCurrentBaseValue();
+        }
+        return snapshot.baseValue;
+    }
+
+    @Override
+    public long getGeneration() {
+        if (lock.isHeldByCurrentThread()) {
+            return super.getGeneration();
+        }
+        return snapshot.generation;
+    }
+
+    // ==================== 批量修改 ====================
+
+    @Override
+    void enterBatch() {
+        lock.lock();
+        super.enterBatch();
+    }
+
+    /**
+     * 结束批量修改并释放enterBatch获取的锁
+     * @throws IllegalStateException 当前线程没有进行中的批量修改时，此时不释放锁
+     */
+    @Override
+    void exitBatch() {
+        if (!lock.isHeldByCurrentThread() || !super.isInBatch()) {
+            throw new IllegalStateException("当前线程没有进行中的批量修改");
+        }
+        try {
+            super.exitBatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    long lockOrder() {
+        return lockOrder;
+    }
+
+    @Override
+    public boolean isInBatch() {
+        return lockedBoolean(super::isInBatch);
+    }
+
+    // ==================== 加锁执行的操作 ====================
+
+    @Override
+    public void setCalculationPrecision(int precision, boolean useRounding) {
+        locked(() -> super.setCalculationPrecision(precision, useRounding));
+    }
+
+    @Override
+    public void setDisplayPrecision(int precision, boolean useRounding) {
+        locked(() -> super.setDisplayPrecision(precision, useRounding));
+    }
+
+    @Override
+    public void setFormatPattern(String pattern) {
+        locked(() -> super.setFormatPattern(pattern));
+    }
+
+    @Override
+    public String getFormattedValue() {
+        return locked(super::getFormattedValue);
+    }
+
+    @Override
+    public StringBuilder appendFormattedValue(StringBuilder sb) {
+        return locked(() -> super.appendFormattedValue(sb));
+    }
+
+    @Override
+    public double modifyBaseValue(double delta, String reason) {
+        return lockedDouble(() -> super.modifyBaseValue(delta, reason));
+    }
+
+    @Override
+    public double setBaseValue(double newValue, String reason) {
+        return lockedDouble(() -> super.setBaseValue(newValue, reason));
+    }
+
+    @Override
+    public double resetBaseValue(double newValue) {
+        return lockedDouble(() -> super.resetBaseValue(newValue));
+    }
+
+    @Override
+    public void setHistoryPolicy(HistoryPolicy policy) {
+        locked(() -> super.setHistoryPolicy(policy));
+    }
+
+    @Override
+    public HistoryPolicy getHistoryPolicy() {
+        return locked(super::getHistoryPolicy);
+    }
+
+    /**
+     * 获取修改历史
+     * @return 调用时刻修改历史的副本
+     */
+    @Override
+    public List<PermanentModification> getModificationHistory() {
+        return locked(() -> List.copyOf(super.getModificationHistory()));
+    }
+
+    @Override
+    public int getHistorySize() {
+        return lockedInt(super::getHistorySize);
+    }
+
+    @Override
+    public double undoLastModification() {
+        return lockedDouble(super::undoLastModification);
+    }
+
+    @Override
+    public double undoToHistoryPoint(int index) {
+        return lockedDouble(() -> super.undoToHistoryPoint(index));
+    }
+
+    @Override
+    public void clearHistory() {
+        locked(super::clearHistory);
+    }
+
+    @Override
+    public TemporaryModifier addAdditiveModifier(String id, double value, String tag, int priority) {
+        return locked(() -> super.addAdditiveModifier(id, value, tag, priority));
+    }
+
+    @Override
+    public TemporaryModifier addMultiplicativeModifier(String id, double value, String tag, int priority) {
+        return locked(() -> super.addMultiplicativeModifier(id, value, tag, priority));
+    }
+
+    @Override
+    public TemporaryModifier addBaseMultiplicativeModifier(String id, double value, String tag, int priority) {
+        return locked(() -> super.addBaseMultiplicativeModifier(id, value, tag, priority));
+    }
+
+    @Override
+    public TemporaryModifier addMinLimitModifier(String id, double minValue, String tag, int priority) {
+        return locked(() -> super.addMinLimitModifier(id, minValue, tag, priority));
+    }
+
+    @Override
+    public TemporaryModifier addMaxLimitModifier(String id, double maxValue, String tag, int priority) {
+        return locked(() -> super.addMaxLimitModifier(id, maxValue, tag, priority));
+    }
+
+    @Override
+    public boolean setModifierPriority(String id, int newPriority) {
+        return lockedBoolean(() -> super.setModifierPriority(id, newPriority));
+    }
+
+    @Override
+    public TemporaryModifier expireAfter(String id, ModifierTimer timer, long duration) {
+        return locked(() -> super.expireAfter(id, timer, duration));
+    }
+
+    @Override
+    boolean removeExpiredModifier(TemporaryModifier modifier) {
+        return lockedBoolean(() -> super.removeExpiredModifier(modifier));
+    }
+
+    @Override
+    public boolean removeModifier(String id) {
+        return lockedBoolean(() -> super.removeModifier(id));
+    }
+
+    @Override
+    public int removeModifiersByTag(String tag) {
+        return lockedInt(() -> super.removeModifiersByTag(tag));
+    }
+
+    @Override
+    public int removeModifiersByTagPrefix(String tagPrefix) {
+        return lockedInt(() -> super.removeModifiersByTagPrefix(tagPrefix));
+    }
+
+    @Override
+    public void clearAllModifiers() {
+        locked(super::clearAllModifiers);
+    }
+
+    @Override
+    public Collection<TemporaryModifier> getAllModifiers() {
+        return locked(super::getAllModifiers);
+    }
+
+    /**
+     * 获取特定类型的所有修改器，按优先级排序
+     * @param type 修改器类型
+     * @return 调用时刻排序结果的副本
+     */
+    @Override
+    public List<TemporaryModifier> getSortedModifiers(ModifierType type) {
+        return locked(() -> List.copyOf(super.getSortedModifiers(type)));
+    }
+
+    @Override
+    public double getValueExcludingTag(String excludeTag) {
+        return lockedDouble(() -> super.getValueExcludingTag(excludeTag));
+    }
+
+    @Override
+    public double getValueForTag(String includeTag) {
+        return lockedDouble(() -> super.getValueForTag(includeTag));
+    }
+
+    @Override
+    public double calculateValue(TagFilter filter) {
+        return lockedDouble(() -> super.calculateValue(filter));
+    }
+
+    @Override
+    public double calculateValue(Predicate<TemporaryModifier> filter) {
+        return lockedDouble(() -> super.calculateValue(filter));
+    }
+
+    @Override
+    public ModifiedValue createModifiedValue() {
+        return locked(() -> super.createModifiedValue());
+    }
+
+    @Override
+    public ModifiedValue createModifiedValueForTag(String includeTag) {
+        return locked(() -> super.createModifiedValueForTag(includeTag));
+    }
+
+    @Override
+    public ModifiedValue createModifiedValueExcludingTag(String excludeTag) {
+        return locked(() -> super.createModifiedValueExcludingTag(excludeTag));
+    }
+
+    @Override
+    public ModifiedValue createModifiedValue(Predicate<TemporaryModifier> filter) {
+        return locked(() -> super.createModifiedValue(filter));
+    }
+
+    @Override
+    void unregisterModifiedValue(Registration registration) {
+        locked(() -> super.unregisterModifiedValue(registration));
+    }
+
+    @Override
+    public int getLiveSubscriberCount() {
+        return lockedInt(super::getLiveSubscriberCount);
+    }
+
+    @Override
+    double readModifiedValue(ModifiedValue value) {
+        return lockedDouble(() -> super.readModifiedValue(value));
+    }
+
+    @Override
+    ValueBreakdown createValueBreakdown(ModifiedValue value) {
+        return locked(() -> super.createValueBreakdown(value));
+    }
+
+    /**
+     * 设置ModifiedValue的更新方式
+     * @param mode 只支持EAGER
+     * @throws IllegalArgumentException 传入LAZY时
+     */
+    @Override
+    public void setUpdateMode(UpdateMode mode) {
+        if (mode == UpdateMode.LAZY) {
+            throw new IllegalArgumentException("并发ValueModifier只支持立即更新");
+        }
+        locked(() -> super.setUpdateMode(mode));
+    }
+
+    @Override
+    public ModifierSubscription subscribe(Set<ModifierType> types, String tagPrefix, ModifierChangeListener listener) {
+        return locked(() -> super.subscribe(types, tagPrefix, listener));
+    }
+
+    @Override
+    void unsubscribe(ModifierSubscription subscription) {
+        locked(() -> super.unsubscribe(subscription));
+    }
+
+    @Override
+    public ValueSnapshot snapshot() {
+        return locked(super::snapshot);
+    }
+
+    @Override
+    public String toString() {
+        return locked(super::toString);
+    }
+
+    // ==================== 加锁辅助方法 ====================
+
+    private void locked(Runnable action) {
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <T> T locked(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double lockedDouble(DoubleSupplier action) {
+        lock.lock();
+        try {
+            return action.getAsDouble();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int lockedInt(IntSupplier action) {
+        lock.lock();
+        try {
+            return action.getAsInt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean lockedBoolean(BooleanSupplier action) {
+        lock.lock();
+        try {
+            return action.getAsBoolean();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.main.classes;
+
+/**
+ * 不可修改的常量数值，只保存一个double
+ * 用于不会添加修改器的属性（如大多数技能的能量消耗），需要修改器时再换成ValueModifier。
+ * 0到100之间的整数值共享同一个实例。
+ */
+public final class FixedValue implements StatValue {
+    private static final FixedValue[] SMALL_INTEGERS = new FixedValue[101];
+
+    static {
+        for (int i = 0; i < SMALL_INTEGERS.length; i++) {
+            SMALL_INTEGERS[i] = new FixedValue(i);
+        }
+    }
+
+    private final double value;
+
+    private FixedValue(double value) {
+        this.value = value;
+    }
+
+    /**
+     * 获取常量数值
+     * @param value 数值
+     * @return 常量数值，常用的小整数返回共享实例
+     */
+    public static FixedValue of(double value) {
+        if (value >= 0 && value < SMALL_INTEGERS.length && value == (int) value
+                && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0)) {
+            return SMALL_INTEGERS[(int) value];
+        }
+        return new FixedValue(value);
+    }
+
+    @Override
+    public double getFinalValue() {
+        return value;
+    }
+
+    /**
+     * 获取格式化的值，与没有设置显示精度和格式化模式的ValueModifier相同
+     * @return 格式化后的字符串
+     */
+    @Override
+    public String getFormattedValue() {
+        return Double.toString(value);
+    }
+
+    @Override
+    public StringBuilder appendFormattedValue(StringBuilder sb) {
+        return sb.append(value);
+    }
+
+    /**
+     * 创建一个以该值为基础值的ValueModifier
+     * @return 新的ValueModifier
+     */
+    public ValueModifier toValueModifier() {
+        return new ValueModifier(value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FixedValue && Double.compare(((FixedValue) o).value, value) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,79 @@
+package com.main.classes;
+
+/**
+ * 永久修改历史的保留策略
+ * 无限制：保留全部记录（默认）
+ * 环形：只保留最近N条记录，更早的记录直接丢弃
+ * 压缩：记录达到N条时，把较早的一半合并为一条检查点记录，撤销到检查点会回到被合并修改之前的基础值
+ */
+public final class HistoryPolicy {
+    private static final HistoryPolicy UNBOUNDED = new HistoryPolicy(Kind.UNBOUNDED, Integer.MAX_VALUE);
+
+    enum Kind {
+        UNBOUNDED, RING, COMPACTING
+    }
+
+    private final Kind kind;
+    private final int capacity;
+
+    private HistoryPolicy(Kind kind, int capacity) {
+        this.kind = kind;
+        this.capacity = capacity;
+    }
+
+    /**
+     * 保留全部历史记录
+     * @return 保留策略
+     */
+    public static HistoryPolicy unbounded() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * 只保留最近的若干条记录
+     * @param capacity 保留条数，0表示不记录历史
+     * @return 保留策略
+     */
+    public static HistoryPolicy ring(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("历史保留条数不能为负数: " + capacity);
+        }
+        return new HistoryPolicy(Kind.RING, capacity);
+    }
+
+    /**
+     * 记录达到上限时把较早的一半记录合并为检查点
+     * @param capacity 保留条数上限，至少为2
+     * @return 保留策略
+     */
+    public static HistoryPolicy compacting(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("压缩历史的保留条数至少为2: " + capacity);
+        }
+        return new HistoryPolicy(Kind.COMPACTING, capacity);
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * 获取保留条数上限
+     * @return 上限，无限制时为Integer.MAX_VALUE
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case RING:
+                return "保留最近" + capacity + "条";
+            case COMPACTING:
+                return "超过" + capacity + "条时压缩";
+            default:
+                return "无限制";
+        }
+    }
+}
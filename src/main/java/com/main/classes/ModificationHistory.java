@@ -0,0 +1,219 @@
+package com.main.classes;
+
+import com.main.classes.ValueModifier.PermanentModification;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 永久修改历史的列式存储
+ * 旧值、新值、时间戳分别保存在基本类型数组中，按环形缓冲区组织，
+ * 丢弃或合并最早的记录只需移动起点，不需要搬移数组
+ */
+final class ModificationHistory {
+    static final String CHECKPOINT_REASON = "历史检查点";
+
+    // 纳秒时间戳的起点：类加载时对齐一次系统时间，之后用nanoTime推算，记录时无需创建时间对象
+    private static final long EPOCH_NANOS_ORIGIN = System.currentTimeMillis() * 1_000_000L;
+    private static final long NANO_TIME_ORIGIN = System.nanoTime();
+
+    private static final double[] EMPTY_DOUBLES = new double[0];
+    private static final long[] EMPTY_LONGS = new long[0];
+    private static final int[] EMPTY_INTS = new int[0];
+    private static final String[] EMPTY_STRINGS = new String[0];
+
+    private final HistoryPolicy policy;
+
+    private double[] oldValues = EMPTY_DOUBLES;
+    private double[] newValues = EMPTY_DOUBLES;
+    private long[] epochNanos = EMPTY_LONGS;
+    private String[] reasons = EMPTY_STRINGS;
+    // 每条记录代表的原始修改次数，检查点大于1
+    private int[] mergedCounts = EMPTY_INTS;
+
+    private int head;
+    private int size;
+
+    // 只读视图，按需生成记录对象
+    private final List<PermanentModification> view = new AbstractList<>() {
+        @Override
+        public PermanentModification get(int index) {
+            checkIndex(index);
+            int slot = slot(index);
+            return new PermanentModification(oldValues[slot], newValues[slot], reasons[slot],
+                    epochNanos[slot], mergedCounts[slot]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    ModificationHistory(HistoryPolicy policy) {
+        this.policy = policy;
+    }
+
+    static long currentEpochNanos() {
+        return EPOCH_NANOS_ORIGIN + (System.nanoTime() - NANO_TIME_ORIGIN);
+    }
+
+    HistoryPolicy getPolicy() {
+        return policy;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    List<PermanentModification> view() {
+        return view;
+    }
+
+    double oldValue(int index) {
+        checkIndex(index);
+        return oldValues[slot(index)];
+    }
+
+    double newValue(int index) {
+        checkIndex(index);
+        return newValues[slot(index)];
+    }
+
+    /**
+     * 追加一条修改记录，按保留策略丢弃或合并最早的记录
+     */
+    void record(double oldValue, double newValue, String reason) {
+        append(oldValue, newValue, reason, currentEpochNanos(), 1);
+    }
+
+    /**
+     * 按原样追加记录，用于切换保留策略时迁移已有历史
+     */
+    void append(double oldValue, double newValue, String reason, long nanos, int mergedCount) {
+        int capacity = policy.getCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        if (size == capacity) {
+            if (policy.getKind() == HistoryPolicy.Kind.COMPACTING) {
+                compact(Math.max(2, capacity / 2));
+            } else {
+                // 环形缓冲区已满：覆盖最早的记录
+                int slot = head;
+                head = slot(1);
+                size--;
+                reasons[slot] = null;
+            }
+        }
+        if (size == oldValues.length) {
+            grow();
+        }
+        int slot = slot(size);
+        oldValues[slot] = oldValue;
+        newValues[slot] = newValue;
+        reasons[slot] = reason;
+        epochNanos[slot] = nanos;
+        mergedCounts[slot] = mergedCount;
+        size++;
+    }
+
+    /**
+     * 把最早的count条记录合并为一条检查点记录
+     */
+    private void compact(int count) {
+        int first = head;
+        int last = slot(count - 1);
+        int merged = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = slot(i);
+            merged += mergedCounts[slot];
+            if (slot != last) {
+                reasons[slot] = null;
+            }
+        }
+        double checkpointOld = oldValues[first];
+        // 检查点写在被合并区间的最后一个位置上，起点移动到这里
+        oldValues[last] = checkpointOld;
+        reasons[last] = CHECKPOINT_REASON;
+        mergedCounts[last] = merged;
+        head = last;
+        size -= count - 1;
+    }
+
+    /**
+     * 移除最后一条记录
+     */
+    void removeLast() {
+        int slot = slot(size - 1);
+        reasons[slot] = null;
+        size--;
+    }
+
+    /**
+     * 移除指定索引及之后的所有记录
+     */
+    void truncate(int index) {
+        for (int i = index; i < size; i++) {
+            reasons[slot(i)] = null;
+        }
+        size = index;
+    }
+
+    void clear() {
+        Arrays.fill(reasons, null);
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * 把当前记录按原样迁移到使用新策略的历史中
+     */
+    ModificationHistory withPolicy(HistoryPolicy newPolicy) {
+        ModificationHistory copy = new ModificationHistory(newPolicy);
+        for (int i = 0; i < size; i++) {
+            int slot = slot(i);
+            copy.append(oldValues[slot], newValues[slot], reasons[slot], epochNanos[slot], mergedCounts[slot]);
+        }
+        return copy;
+    }
+
+    private void grow() {
+        int newLength = (int) Math.min((long) policy.getCapacity(), Math.max(8L, oldValues.length * 2L));
+        double[] newOld = new double[newLength];
+        double[] newNew = new double[newLength];
+        long[] newNanos = new long[newLength];
+        String[] newReasons = new String[newLength];
+        int[] newMerged = new int[newLength];
+        for (int i = 0; i < size; i++) {
+            int slot = slot(i);
+            newOld[i] = oldValues[slot];
+            newNew[i] = newValues[slot];
+            newNanos[i] = epochNanos[slot];
+            newReasons[i] = reasons[slot];
+            newMerged[i] = mergedCounts[slot];
+        }
+        oldValues = newOld;
+        newValues = newNew;
+        epochNanos = newNanos;
+        reasons = newReasons;
+        mergedCounts = newMerged;
+        head = 0;
+    }
+
+    private int slot(int index) {
+        int slot = head + index;
+        return slot >= oldValues.length ? slot - oldValues.length : slot;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Invalid history index: " + index);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.main.classes;
+
+import com.main.classes.ValueModifier.TemporaryModifier;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 单一修改器类型的增量聚合结果
+ * 修改器始终按ValueModifier.MODIFIER_ORDER排列在数组中，加入和移除使用二分查找定位，优先级改变时移动到新位置，不需要排序。
+ * 求和部分按该顺序执行与DoubleStream.sum()相同的补偿求和，保证与calculateValue结果一致；
+ * 每个位置保存到该位置为止的求和状态和最大/最小值，变化发生在位置p时只需从p开始重新累加，追加到末尾为O(1)。
+ */
+final class ModifierAggregate {
+    private static final TemporaryModifier[] EMPTY = new TemporaryModifier[0];
+    private static final double[] EMPTY_STATE = new double[0];
+
+    // 按MODIFIER_ORDER排列的修改器，前count个有效
+    private TemporaryModifier[] ordered = EMPTY;
+    private int count;
+
+    // 前缀状态：下标i保存前i+1个修改器的补偿求和状态（高位和、取负的低位补偿、简单和）及最大值、最小值
+    private double[] prefixHigh = EMPTY_STATE;
+    private double[] prefixCompensation = EMPTY_STATE;
+    private double[] prefixSimple = EMPTY_STATE;
+    private double[] prefixMax = EMPTY_STATE;
+    private double[] prefixMin = EMPTY_STATE;
+    // 从该下标开始的前缀状态需要重新累加，等于count时表示全部有效
+    private int validPrefix;
+
+    // 按顺序排列的只读视图
+    private final List<TemporaryModifier> view = new AbstractList<>() {
+        @Override
+        public TemporaryModifier get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Invalid modifier index: " + index);
+            }
+            return ordered[index];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    };
+
+    /**
+     * 按顺序插入修改器，与已有修改器顺序相同时排在它们之后
+     * @param modifier 修改器
+     */
+    void add(TemporaryModifier modifier) {
+        if (count == ordered.length) {
+            grow();
+        }
+        int position = upperBound(modifier);
+        System.arraycopy(ordered, position, ordered, position + 1, count - position);
+        ordered[position] = modifier;
+        count++;
+        validPrefix = Math.min(validPrefix, position);
+    }
+
+    /**
+     * 移除修改器实例
+     * @param modifier 修改器
+     * @return 是否移除
+     */
+    boolean remove(TemporaryModifier modifier) {
+        int position = indexOf(modifier);
+        if (position < 0) {
+            return false;
+        }
+        removeAt(position);
+        return true;
+    }
+
+    /**
+     * 修改器优先级改变后移动到新的位置
+     * 修改器的排序键已经改变，无法二分查找原位置，因此按实例查找
+     * @param modifier 修改器
+     */
+    void reposition(TemporaryModifier modifier) {
+        for (int i = 0; i < count; i++) {
+            if (ordered[i] == modifier) {
+                removeAt(i);
+                add(modifier);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 清空聚合结果
+     */
+    void reset() {
+        Arrays.fill(ordered, 0, count, null);
+        count = 0;
+        validPrefix = 0;
+    }
+
+    private void removeAt(int position) {
+        System.arraycopy(ordered, position + 1, ordered, position, count - position - 1);
+        ordered[--count] = null;
+        validPrefix = Math.min(validPrefix, position);
+    }
+
+    /**
+     * 第一个排在modifier之后的位置
+     */
+    private int upperBound(TemporaryModifier modifier) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ValueModifier.MODIFIER_ORDER.compare(ordered[mid], modifier) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(TemporaryModifier modifier) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ValueModifier.MODIFIER_ORDER.compare(ordered[mid], modifier) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // 排序键相同的修改器相邻排列，逐个比较实例
+        for (int i = low; i < count && ValueModifier.MODIFIER_ORDER.compare(ordered[i], modifier) == 0; i++) {
+            if (ordered[i] == modifier) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void grow() {
+        int capacity = Math.max(4, ordered.length * 2);
+        ordered = Arrays.copyOf(ordered, capacity);
+        prefixHigh = Arrays.copyOf(prefixHigh, capacity);
+        prefixCompensation = Arrays.copyOf(prefixCompensation, capacity);
+        prefixSimple = Arrays.copyOf(prefixSimple, capacity);
+        prefixMax = Arrays.copyOf(prefixMax, capacity);
+        prefixMin = Arrays.copyOf(prefixMin, capacity);
+    }
+
+    /**
+     * 从第一个失效的位置开始重新累加前缀状态
+     */
+    private void ensureFresh() {
+        if (validPrefix >= count) {
+            return;
+        }
+        int start = validPrefix;
+        double high = start == 0 ? 0 : prefixHigh[start - 1];
+        double compensation = start == 0 ? 0 : prefixCompensation[start - 1];
+        double simple = start == 0 ? 0 : prefixSimple[start - 1];
+        double max = start == 0 ? Double.NEGATIVE_INFINITY : prefixMax[start - 1];
+        double min = start == 0 ? Double.POSITIVE_INFINITY : prefixMin[start - 1];
+        for (int i = start; i < count; i++) {
+            double value = ordered[i].getValue();
+            // 与Collectors.sumWithCompensation相同的Kahan求和步骤
+            double tmp = value - compensation;
+            double velvel = high + tmp;
+            compensation = (velvel - high) - tmp;
+            high = velvel;
+            simple += value;
+            max = Math.max(max, value);
+            min = Math.min(min, value);
+
+            prefixHigh[i] = high;
+            prefixCompensation[i] = compensation;
+            prefixSimple[i] = simple;
+            prefixMax[i] = max;
+            prefixMin[i] = min;
+        }
+        validPrefix = count;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    /**
+     * 获取修改值之和，与Collectors.computeFinalSum的结果一致
+     * @return 修改值之和
+     */
+    double getSum() {
+        if (count == 0) {
+            return 0.0;
+        }
+        ensureFresh();
+        double tmp = prefixHigh[count - 1] - prefixCompensation[count - 1];
+        double simple = prefixSimple[count - 1];
+        if (Double.isNaN(tmp) && Double.isInfinite(simple)) {
+            return simple;
+        }
+        return tmp;
+    }
+
+    double getMaxValue() {
+        if (count == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        ensureFresh();
+        return prefixMax[count - 1];
+    }
+
+    double getMinValue() {
+        if (count == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        ensureFresh();
+        return prefixMin[count - 1];
+    }
+
+    /**
+     * 获取排在最前的修改器的优先级
+     * @return 优先级，没有修改器时返回0
+     */
+    int getHeadPriority() {
+        return count == 0 ? 0 : ordered[0].getPriority();
+    }
+
+    /**
+     * 获取按顺序排列的修改器
+     * @return 只读视图，随修改器变化
+     */
+    List<TemporaryModifier> sortedView() {
+        return view;
+    }
+
+    // ==================== 按条件过滤的聚合 ====================
+
+    /**
+     * 按顺序对匹配过滤条件的修改器求和，求和方式与getSum()相同
+     * @param filter 过滤条件
+     * @return 修改值之和
+     */
+    double getFilteredSum(Predicate<TemporaryModifier> filter) {
+        double high = 0;
+        double compensation = 0;
+        double simple = 0;
+        for (int i = 0; i < count; i++) {
+            TemporaryModifier modifier = ordered[i];
+            if (filter.test(modifier)) {
+                double value = modifier.getValue();
+                double tmp = value - compensation;
+                double velvel = high + tmp;
+                compensation = (velvel - high) - tmp;
+                high = velvel;
+                simple += value;
+            }
+        }
+        double tmp = high - compensation;
+        if (Double.isNaN(tmp) && Double.isInfinite(simple)) {
+            return simple;
+        }
+        return tmp;
+    }
+
+    int getFilteredCount(Predicate<TemporaryModifier> filter) {
+        int matched = 0;
+        for (int i = 0; i < count; i++) {
+            if (filter.test(ordered[i])) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    double getFilteredMaxValue(Predicate<TemporaryModifier> filter) {
+        double result = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (filter.test(ordered[i])) {
+                result = Math.max(result, ordered[i].getValue());
+            }
+        }
+        return result;
+    }
+
+    double getFilteredMinValue(Predicate<TemporaryModifier> filter) {
+        double result = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (filter.test(ordered[i])) {
+                result = Math.min(result, ordered[i].getValue());
+            }
+        }
+        return result;
+    }
+
+    int getFilteredHeadPriority(Predicate<TemporaryModifier> filter) {
+        for (int i = 0; i < count; i++) {
+            if (filter.test(ordered[i])) {
+                return ordered[i].getPriority();
+            }
+        }
+        return 0;
+    }
+}
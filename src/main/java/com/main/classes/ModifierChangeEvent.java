@@ -0,0 +1,97 @@
+package com.main.classes;
+
+import com.main.classes.ValueModifier.ModifierSnapshot;
+import com.main.classes.ValueModifier.ModifierType;
+
+/**
+ * 临时修改器的一次变化：添加、移除或优先级改变
+ * 同一次提交（批量修改中为整个事务）内的事件按发生顺序汇总后一次性交给订阅者。
+ */
+public final class ModifierChangeEvent {
+
+    /**
+     * 变化类型
+     */
+    public enum Kind {
+        ADDED("添加"),
+        REMOVED("移除"),
+        PRIORITY_CHANGED("优先级改变");
+
+        private final String description;
+
+        Kind(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final Kind kind;
+    private final ModifierSnapshot modifier;
+    private final int previousPriority;
+
+    ModifierChangeEvent(Kind kind, ModifierSnapshot modifier, int previousPriority) {
+        this.kind = kind;
+        this.modifier = modifier;
+        this.previousPriority = previousPriority;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * 获取变化后的修改器状态，移除事件为移除时的状态
+     * @return 修改器快照
+     */
+    public ModifierSnapshot getModifier() {
+        return modifier;
+    }
+
+    public ModifierType getType() {
+        return modifier.getType();
+    }
+
+    public String getTag() {
+        return modifier.getTag();
+    }
+
+    /**
+     * 获取变化前的优先级，只有优先级改变事件与当前优先级不同
+     * @return 变化前的优先级
+     */
+    public int getPreviousPriority() {
+        return previousPriority;
+    }
+
+    /**
+     * 获取该类型修改器值总和的变化量：添加为修改器的值，移除为其相反数，优先级改变为0
+     * @return 总和的变化量
+     */
+    public double getAggregateDelta() {
+        switch (kind) {
+            case ADDED:
+                return modifier.getValue();
+            case REMOVED:
+                return -modifier.getValue();
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(64).append("修改器").append(kind.getDescription())
+                .append('[').append(modifier.getId()).append(", ").append(modifier.getType().getDescription())
+                .append(", ").append(modifier.getTag());
+        if (kind == Kind.PRIORITY_CHANGED) {
+            sb.append(", 优先级: ").append(previousPriority).append(" -> ").append(modifier.getPriority());
+        } else {
+            sb.append(", 变化: ");
+            ValueFormatter.appendFixed(sb, getAggregateDelta(), 2, true);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.main.classes;
+
+import java.util.List;
+
+/**
+ * 临时修改器变化的订阅者
+ */
+@FunctionalInterface
+public interface ModifierChangeListener {
+
+    /**
+     * 一次提交的修改器变化，批量修改中整个事务只回调一次
+     * @param source 发生变化的ValueModifier
+     * @param events 该订阅关心的事件，按发生顺序排列，不可修改且不为空
+     */
+    void onModifierChanges(ValueModifier source, List<ModifierChangeEvent> events);
+}
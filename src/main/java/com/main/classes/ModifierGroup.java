@@ -0,0 +1,127 @@
+package com.main.classes;
+
+import com.main.classes.ValueModifier.ModifierType;
+import com.main.classes.ValueModifier.TemporaryModifier;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一组按类型分组存储的临时修改器及其增量聚合结果
+ * ValueModifier用它保存全部修改器，标签索引用它保存同一标签下的修改器
+ */
+final class ModifierGroup {
+    private final Map<ModifierType, Map<String, TemporaryModifier>> modifiersByType = new EnumMap<>(ModifierType.class);
+    private final Map<ModifierType, ModifierAggregate> aggregates = new EnumMap<>(ModifierType.class);
+    private int size = 0;
+    // 修改器集合或排序每次变化时增加，用于判断快照中的修改器列表能否复用
+    private int version = 0;
+
+    ModifierGroup() {
+        for (ModifierType type : ModifierType.values()) {
+            Map<String, TemporaryModifier> modifiers = new HashMap<>();
+            modifiersByType.put(type, modifiers);
+            aggregates.put(type, new ModifierAggregate());
+        }
+    }
+
+    /**
+     * 加入修改器，同类型下ID相同的修改器会被替换
+     * @param modifier 修改器
+     * @return 被替换的修改器，没有则返回null
+     */
+    TemporaryModifier put(TemporaryModifier modifier) {
+        ModifierType type = modifier.getType();
+        TemporaryModifier replaced = modifiersByType.get(type).put(modifier.getId(), modifier);
+        ModifierAggregate aggregate = aggregates.get(type);
+        if (replaced != null) {
+            aggregate.remove(replaced);
+        } else {
+            size++;
+        }
+        aggregate.add(modifier);
+        version++;
+        return replaced;
+    }
+
+    /**
+     * 移除指定的修改器实例
+     * @param modifier 修改器
+     * @return 是否移除
+     */
+    boolean remove(TemporaryModifier modifier) {
+        ModifierType type = modifier.getType();
+        if (!modifiersByType.get(type).remove(modifier.getId(), modifier)) {
+            return false;
+        }
+        aggregates.get(type).remove(modifier);
+        size--;
+        version++;
+        return true;
+    }
+
+    /**
+     * 按类型顺序查找第一个ID匹配的修改器
+     * @param id 修改器ID
+     * @return 修改器，没有则返回null
+     */
+    TemporaryModifier find(String id) {
+        for (Map<String, TemporaryModifier> modifiers : modifiersByType.values()) {
+            TemporaryModifier modifier = modifiers.get(id);
+            if (modifier != null) {
+                return modifier;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 判断修改器实例是否属于该组
+     * @param modifier 修改器
+     * @return 是否属于该组
+     */
+    boolean contains(TemporaryModifier modifier) {
+        return modifiersByType.get(modifier.getType()).get(modifier.getId()) == modifier;
+    }
+
+    /**
+     * 修改器优先级改变后把它移动到对应类型排序中的新位置
+     * @param modifier 修改器
+     */
+    void priorityChanged(TemporaryModifier modifier) {
+        aggregates.get(modifier.getType()).reposition(modifier);
+        version++;
+    }
+
+    void clear() {
+        for (Map<String, TemporaryModifier> modifiers : modifiersByType.values()) {
+            modifiers.clear();
+        }
+        for (ModifierAggregate aggregate : aggregates.values()) {
+            aggregate.reset();
+        }
+        size = 0;
+        version++;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int version() {
+        return version;
+    }
+
+    Map<String, TemporaryModifier> modifiers(ModifierType type) {
+        return modifiersByType.get(type);
+    }
+
+    ModifierAggregate aggregate(ModifierType type) {
+        return aggregates.get(type);
+    }
+}
@@ -0,0 +1,350 @@
+package com.main.classes;
+
+import com.main.classes.ValueModifier.TemporaryModifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * 修改器到期计时器，使用分层时间轮批量移除到期的临时修改器
+ * 时间以"刻"为单位：按回合计时的计时器每回合推进一刻，按真实时间计时的计时器每tickMillis毫秒推进一刻。
+ * 添加、取消到期都是O(1)，推进一刻只处理当前槽位中的修改器，不需要扫描所有修改器。
+ * 同一包中的类还可以安排在某一刻执行的回调，例如ResourceValue在自然恢复穿越阈值的那一刻结算。
+ * 计时器不是线程安全的，应与其管理的ValueModifier在同一线程中使用（例如每场战斗一个）。
+ */
+public final class ModifierTimer {
+    // 每层时间轮64个槽位，共4层，可直接容纳约1677万刻以内的到期时间，更远的进入溢出链表
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final int OVERFLOW_LEVEL = LEVELS;
+
+    private final Entry[][] slots = new Entry[LEVELS + 1][WHEEL_SIZE];
+    private long currentTick = 0;
+    private int size = 0;
+
+    // 真实时间计时使用的时钟，按回合计时的计时器为null
+    private final LongSupplier clock;
+    private final long tickMillis;
+    private final long originMillis;
+
+    /**
+     * 创建一个手动推进的计时器，例如按回合计时
+     */
+    public ModifierTimer() {
+        this.clock = null;
+        this.tickMillis = 1;
+        this.originMillis = 0;
+    }
+
+    private ModifierTimer(LongSupplier clock, long tickMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("时间刻长度必须为正数: " + tickMillis);
+        }
+        this.clock = clock;
+        this.tickMillis = tickMillis;
+        this.originMillis = clock.getAsLong();
+    }
+
+    /**
+     * 创建一个按真实时间计时的计时器，持续时间以毫秒为单位
+     * @param tickMillis 每一刻的毫秒数，决定到期的精度
+     * @return 计时器
+     */
+    public static ModifierTimer realTime(long tickMillis) {
+        return new ModifierTimer(System::currentTimeMillis, tickMillis);
+    }
+
+    /**
+     * 创建一个使用指定时钟的真实时间计时器
+     * @param clock 返回当前毫秒数的时钟
+     * @param tickMillis 每一刻的毫秒数
+     * @return 计时器
+     */
+    public static ModifierTimer realTime(LongSupplier clock, long tickMillis) {
+        return new ModifierTimer(clock, tickMillis);
+    }
+
+    /**
+     * 是否按真实时间计时
+     * @return 是否按真实时间计时
+     */
+    public boolean isRealTime() {
+        return clock != null;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * 获取等待到期的修改器和回调数量
+     * @return 数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 安排修改器在指定持续时间后到期，同一修改器再次安排会取代之前的到期时间
+     * 一般通过ValueModifier.expireAfter调用
+     * @param owner 修改器所属的ValueModifier
+     * @param modifier 修改器
+     * @param duration 持续时间，按回合计时为回合数，按真实时间计时为毫秒数
+     */
+    void schedule(ValueModifier owner, TemporaryModifier modifier, long duration) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("持续时间必须为正数: " + duration);
+        }
+        long ticks = clock == null ? duration : (duration + tickMillis - 1) / tickMillis;
+        if (modifier.expiration != null) {
+            modifier.expiration.cancel();
+        }
+        // 真实时间计时器的currentTick只在推进时更新，到期时间从时钟的当前刻算起，避免新修改器一加入就已过期
+        Entry entry = new Entry(this, owner, modifier, null, nowTick() + ticks);
+        modifier.expiration = entry;
+        insert(entry);
+        size++;
+    }
+
+    /**
+     * 安排在指定的刻执行一次回调，回调在该刻到期的修改器移除之后执行
+     * @param tick 执行的刻，不晚于当前刻时在下一刻执行
+     * @param action 回调
+     * @return 安排，可以通过cancel()取消
+     */
+    Entry scheduleAt(long tick, Runnable action) {
+        Entry entry = new Entry(this, null, null, action, Math.max(tick, currentTick + 1));
+        insert(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * 推进指定的刻数，移除期间到期的修改器
+     * @param ticks 推进的刻数
+     * @return 到期移除的修改器数量
+     */
+    public int advance(long ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException("推进的刻数不能为负数: " + ticks);
+        }
+        return advanceTo(currentTick + ticks);
+    }
+
+    /**
+     * 推进到指定的刻，移除期间到期的修改器
+     * @param tick 目标刻
+     * @return 到期移除的修改器数量
+     */
+    public int advanceTo(long tick) {
+        int expired = 0;
+        while (currentTick < tick) {
+            // 中间的刻没有到期的修改器也没有需要重新分配的槽位，直接跳到下一个有事可做的刻
+            long next = size == 0 ? Long.MAX_VALUE : nextEventTick();
+            if (next > tick) {
+                currentTick = tick;
+                break;
+            }
+            currentTick = next - 1;
+            expired += tick();
+        }
+        return expired;
+    }
+
+    /**
+     * 按时钟推进到当前时间，只适用于真实时间计时器
+     * @return 到期移除的修改器数量
+     */
+    public int advanceToNow() {
+        if (clock == null) {
+            throw new IllegalStateException("按回合计时的计时器需要手动推进");
+        }
+        return advanceTo((clock.getAsLong() - originMillis) / tickMillis);
+    }
+
+    /**
+     * 获取时钟对应的当前刻，按回合计时的计时器就是currentTick
+     */
+    private long nowTick() {
+        if (clock == null) {
+            return currentTick;
+        }
+        return Math.max(currentTick, (clock.getAsLong() - originMillis) / tickMillis);
+    }
+
+    /**
+     * 查找下一个需要处理的刻：最低层时间轮中下一个非空槽位，或上层下一个非空槽位的重新分配边界
+     * 较低层的候选总是早于较高层的，因此找到的第一个即为最早的一个
+     * @return 下一个需要处理的刻，大于currentTick
+     */
+    private long nextEventTick() {
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            Entry[] wheel = slots[level];
+            for (int slot = ((int) (currentTick >>> shift) & WHEEL_MASK) + 1; slot < WHEEL_SIZE; slot++) {
+                if (wheel[slot] != null) {
+                    return (currentTick >>> (shift + WHEEL_BITS) << (shift + WHEEL_BITS)) | ((long) slot << shift);
+                }
+            }
+        }
+        // 只剩溢出链表中的修改器，下一次在溢出层边界重新分配
+        int shift = WHEEL_BITS * LEVELS;
+        return ((currentTick >>> shift) + 1) << shift;
+    }
+
+    private int tick() {
+        currentTick++;
+
+        // 到达上层时间轮的槽位边界时，将该槽位中的修改器重新分配到下层
+        if ((currentTick & ((1L << (WHEEL_BITS * LEVELS)) - 1)) == 0) {
+            cascade(OVERFLOW_LEVEL, 0);
+        }
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+                cascade(level, (int) (currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            }
+        }
+
+        int slot = (int) currentTick & WHEEL_MASK;
+        Entry entry = slots[0][slot];
+        if (entry == null) {
+            return 0;
+        }
+        slots[0][slot] = null;
+
+        // 同一ValueModifier的到期修改器在一次批量修改中移除，只通知一次；按身份去重，大量修改器同时到期时仍为线性
+        List<ValueModifier> owners = new ArrayList<>();
+        Set<ValueModifier> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Entry e = entry; e != null; e = e.next) {
+            if (e.owner != null && seen.add(e.owner)) {
+                owners.add(e.owner);
+            }
+        }
+        int expired = 0;
+        List<Entry> actions = null;
+        try (ValueModifier.Transaction ignored = ValueModifier.beginBatch(owners.toArray(new ValueModifier[0]))) {
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.unlinked();
+                size--;
+                if (entry.action != null) {
+                    if (actions == null) {
+                        actions = new ArrayList<>();
+                    }
+                    actions.add(entry);
+                } else if (entry.modifier.expiration == entry) {
+                    entry.modifier.expiration = null;
+                    if (entry.owner.removeExpiredModifier(entry.modifier)) {
+                        expired++;
+                    }
+                }
+                entry = next;
+            }
+        }
+        // 回调在所有到期修改器移除、通知发出之后执行，回调中可以安排或取消其他到期
+        if (actions != null) {
+            for (Entry action : actions) {
+                if (!action.cancelled) {
+                    action.action.run();
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void cascade(int level, int slot) {
+        Entry entry = slots[level][slot];
+        slots[level][slot] = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.unlinked();
+            insert(entry);
+            entry = next;
+        }
+    }
+
+    private void insert(Entry entry) {
+        long deadline = entry.deadline;
+        int level = 0;
+        // 选择最低的一层：到期时间与当前刻在更高位上相同
+        while (level < LEVELS && (deadline >>> (WHEEL_BITS * (level + 1))) != (currentTick >>> (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = level == OVERFLOW_LEVEL ? 0 : (int) (deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+        Entry head = slots[level][slot];
+        entry.linked = true;
+        entry.level = level;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        slots[level][slot] = entry;
+    }
+
+    /**
+     * 时间轮中的一项到期安排：修改器到期，或者在某一刻执行的回调
+     */
+    static final class Entry {
+        private final ModifierTimer timer;
+        private final ValueModifier owner;
+        private final TemporaryModifier modifier;
+        private final Runnable action;
+        private final long deadline;
+        private int level;
+        private int slot;
+        private Entry prev;
+        private Entry next;
+        private boolean linked;
+        private boolean cancelled;
+
+        private Entry(ModifierTimer timer, ValueModifier owner, TemporaryModifier modifier, Runnable action, long deadline) {
+            this.timer = timer;
+            this.owner = owner;
+            this.modifier = modifier;
+            this.action = action;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 获取距离到期的剩余刻数
+         * @return 剩余刻数
+         */
+        long remainingTicks() {
+            return Math.max(0, deadline - timer.nowTick());
+        }
+
+        /**
+         * 取消到期安排，修改器被提前移除时调用；已从时间轮取出但尚未执行的回调也不再执行
+         */
+        void cancel() {
+            cancelled = true;
+            if (!linked) {
+                return;
+            }
+            if (prev != null) {
+                prev.next = next;
+            } else {
+                timer.slots[level][slot] = next;
+            }
+            if (next != null) {
+                next.prev = prev;
+            }
+            unlinked();
+            timer.size--;
+        }
+
+        private void unlinked() {
+            prev = null;
+            next = null;
+            linked = false;
+        }
+    }
+}
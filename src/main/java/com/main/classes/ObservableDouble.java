@@ -3,14 +3,81 @@ package com.main.classes;
 /**
  * ObservableDouble 是一个可监听的 double 值容器，当值发生变化时可以通知所有监听者。
  * 适合用于 UI 绑定、状态观察等场景，例如当前 HP/能量值。
+ * 监听者以基本类型接收新值（或旧值和新值），通知时不装箱；监听者列表写时复制，回调中可以安全地增删监听者。
+ * 批量修改期间的多次变化合并为一次通知，只传递批量修改开始前的值和最终值。
  */
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 
 public class ObservableDouble extends Number implements Comparable<Number> {
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
     private double value;
-    private final List<Consumer<Double>> listeners = new ArrayList<>();
+    private transient Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+    // 批量修改的嵌套深度，以及批量修改开始前的值
+    private transient int batchDepth = 0;
+    private transient double batchStartValue;
+
+    /**
+     * 接收旧值和新值的监听者
+     */
+    @FunctionalInterface
+    public interface DoubleBiConsumer {
+        void accept(double oldValue, double newValue);
+    }
+
+    /**
+     * 一个已注册的监听者，关闭后不再收到通知，重复关闭不会产生效果
+     */
+    public final class Subscription implements AutoCloseable {
+        private final DoubleConsumer valueListener;
+        private final DoubleBiConsumer changeListener;
+        private boolean active = true;
+
+        private Subscription(DoubleConsumer valueListener, DoubleBiConsumer changeListener) {
+            this.valueListener = valueListener;
+            this.changeListener = changeListener;
+        }
+
+        private void notify(double oldValue, double newValue) {
+            if (changeListener != null) {
+                changeListener.accept(oldValue, newValue);
+            } else {
+                valueListener.accept(newValue);
+            }
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        @Override
+        public void close() {
+            if (active) {
+                active = false;
+                removeSubscription(this);
+            }
+        }
+    }
+
+    /**
+     * 批量修改，关闭时值有变化才通知一次
+     */
+    public final class Batch implements AutoCloseable {
+        private boolean closed = false;
+
+        private Batch() {
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            endBatch();
+        }
+    }
 
     public ObservableDouble(double initialValue) {
         this.value = initialValue;
@@ -22,8 +89,11 @@ public class ObservableDouble extends Number implements Comparable<Number> {
 
     public void set(double newValue) {
         if (Double.compare(this.value, newValue) != 0) {
+            double oldValue = this.value;
             this.value = newValue;
-            notifyListeners();
+            if (batchDepth == 0) {
+                notifyListeners(oldValue, newValue);
+            }
         }
     }
 
@@ -35,13 +105,105 @@ public class ObservableDouble extends Number implements Comparable<Number> {
         set(this.value - delta);
     }
 
-    public void onChanged(Consumer<Double> listener) {
-        listeners.add(listener);
+    /**
+     * 注册监听者，兼容旧接口，每次通知都会装箱；新代码请使用addListener
+     * @param listener 监听者，接收新值
+     * @return 订阅，关闭后不再通知
+     */
+    public Subscription onChanged(Consumer<Double> listener) {
+        return addListener(listener::accept);
+    }
+
+    /**
+     * 注册监听者
+     * @param listener 监听者，接收新值
+     * @return 订阅，关闭后不再通知
+     */
+    public Subscription addListener(DoubleConsumer listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("监听者不能为空");
+        }
+        return addSubscription(new Subscription(listener, null));
+    }
+
+    /**
+     * 注册同时接收旧值和新值的监听者
+     * @param listener 监听者
+     * @return 订阅，关闭后不再通知
+     */
+    public Subscription addChangeListener(DoubleBiConsumer listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("监听者不能为空");
+        }
+        return addSubscription(new Subscription(null, listener));
+    }
+
+    /**
+     * 获取已注册的监听者数量
+     * @return 监听者数量
+     */
+    public int getListenerCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * 开始批量修改：关闭前的set/add/subtract只修改值，关闭时如果值与开始前不同则通知一次
+     * 批量修改可以嵌套，最外层关闭时通知
+     * @return 批量修改，使用try-with-resources关闭
+     */
+    public Batch beginBatch() {
+        if (batchDepth++ == 0) {
+            batchStartValue = value;
+        }
+        return new Batch();
+    }
+
+    /**
+     * 是否处于批量修改中
+     * @return 是否处于批量修改中
+     */
+    public boolean isInBatch() {
+        return batchDepth > 0;
+    }
+
+    private void endBatch() {
+        if (--batchDepth == 0 && Double.compare(batchStartValue, value) != 0) {
+            notifyListeners(batchStartValue, value);
+        }
+    }
+
+    private Subscription addSubscription(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        Subscription[] updated = new Subscription[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+        return subscription;
+    }
+
+    private void removeSubscription(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                if (current.length == 1) {
+                    subscriptions = NO_SUBSCRIPTIONS;
+                    return;
+                }
+                Subscription[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated;
+                return;
+            }
+        }
     }
 
-    private void notifyListeners() {
-        for (Consumer<Double> listener : listeners) {
-            listener.accept(value);
+    private void notifyListeners(double oldValue, double newValue) {
+        // 遍历通知开始时的数组，回调中增删监听者不影响本次通知
+        for (Subscription subscription : subscriptions) {
+            if (subscription.active) {
+                subscription.notify(oldValue, newValue);
+            }
         }
     }
 
@@ -1,5 +1,7 @@
 package com.main.classes;
 
+import java.util.function.Consumer;
+
 public class PetStat {
     ResourceValue HP;
     ResourceValue energy;
@@ -7,6 +9,8 @@ public class PetStat {
     ValueModifier.ModifiedValue currentAttack;
     ValueModifier baseDefense;
     ValueModifier.ModifiedValue currentDefense;
+    // 属性之间的依赖关系（如天赋带来的跨属性加成），首次使用时创建
+    private transient StatGraph statGraph;
 
     public PetStat() {}
 
@@ -51,4 +55,98 @@ public class PetStat {
     public ValueModifier.ModifiedValue getCurrentDefense(){
         return currentDefense;
     }
+
+    /**
+     * 开始一次覆盖HP、能量、攻击和防御的批量修改，关闭时每个属性只通知一次
+     * @return 批量修改事务
+     */
+    public ValueModifier.Transaction beginBatch() {
+        return ValueModifier.beginBatch(getValueModifiers());
+    }
+
+    /**
+     * 获取HP上限、能量上限、攻击和防御对应的ValueModifier
+     * @return ValueModifier数组
+     */
+    public ValueModifier[] getValueModifiers() {
+        return new ValueModifier[]{HP.getBaseMaxValue(), energy.getBaseMaxValue(), baseAttack, baseDefense};
+    }
+
+    /**
+     * 在一次批量修改中修改多个属性
+     * @param action 修改操作
+     */
+    public void batch(Consumer<PetStat> action) {
+        try (ValueModifier.Transaction ignored = beginBatch()) {
+            action.accept(this);
+        }
+    }
+
+    /**
+     * 获取HP、能量、攻击和防御的不可变快照，可以安全地发布给其他线程
+     * @return 快照
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(HP.getBaseMaxValue().snapshot(), HP.getCurrentValue(),
+                energy.getBaseMaxValue().snapshot(), energy.getCurrentValue(),
+                baseAttack.snapshot(), baseDefense.snapshot());
+    }
+
+    /**
+     * 宠物属性某一时刻的不可变快照
+     */
+    public static final class Snapshot {
+        private final ValueModifier.ValueSnapshot maxHP;
+        private final double currentHP;
+        private final ValueModifier.ValueSnapshot maxEnergy;
+        private final double currentEnergy;
+        private final ValueModifier.ValueSnapshot attack;
+        private final ValueModifier.ValueSnapshot defense;
+
+        private Snapshot(ValueModifier.ValueSnapshot maxHP, double currentHP,
+                         ValueModifier.ValueSnapshot maxEnergy, double currentEnergy,
+                         ValueModifier.ValueSnapshot attack, ValueModifier.ValueSnapshot defense) {
+            this.maxHP = maxHP;
+            this.currentHP = currentHP;
+            this.maxEnergy = maxEnergy;
+            this.currentEnergy = currentEnergy;
+            this.attack = attack;
+            this.defense = defense;
+        }
+
+        public ValueModifier.ValueSnapshot getMaxHP() {
+            return maxHP;
+        }
+
+        public double getCurrentHP() {
+            return currentHP;
+        }
+
+        public ValueModifier.ValueSnapshot getMaxEnergy() {
+            return maxEnergy;
+        }
+
+        public double getCurrentEnergy() {
+            return currentEnergy;
+        }
+
+        public ValueModifier.ValueSnapshot getAttack() {
+            return attack;
+        }
+
+        public ValueModifier.ValueSnapshot getDefense() {
+            return defense;
+        }
+    }
+
+    /**
+     * 获取该宠物属性之间的依赖图，用于添加"攻击力随最大HP提升"之类的跨属性加成
+     * @return 属性依赖图
+     */
+    public StatGraph getStatGraph() {
+        if (statGraph == null) {
+            statGraph = new StatGraph();
+        }
+        return statGraph;
+    }
 }
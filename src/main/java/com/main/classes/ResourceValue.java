@@ -3,15 +3,216 @@ package com.main.classes;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
 /*
  * 资源值类，用于表示游戏或应用中的资源（例如基础血量上限、当前血量上限、当前血量）。
  */
-@Setter
-@Getter
 public class ResourceValue {
+    @Getter @Setter
     private ValueModifier baseMaxValue; // 基础最大值（可修改），如基础血量上限。
+    @Getter @Setter
     private ValueModifier.ModifiedValue currentMaxValue; // 计算后的当前最大值，受modifier影响。
+    @Getter @Setter
     private ObservableDouble value; // 当前实际资源值，可能低于或等于最大值。
+    // 按标签过滤的ModifiedValue缓存，重复获取时复用同一个登记，避免每次调用都新增订阅。
+    private Map<String, ValueModifier.ModifiedValue> includeTagValues;
+    private Map<String, ValueModifier.ModifiedValue> excludeTagValues;
+    // 自然恢复：每刻恢复量（负数表示持续流失）、刻数来源、value对应的刻数。
+    // 读取时按经过的刻数推算当前值，只有写入时才把推算结果写回value，不需要定时逐个更新。
+    private double regenRate;
+    private LongSupplier regenTickSource;
+    private long regenLastTick;
+    // 用计时器开启自然恢复时的计时器，以及在下一个阈值被穿越的那一刻结算的安排
+    private ModifierTimer regenTimer;
+    private ModifierTimer.Entry regenWakeup;
+    // 阈值订阅：按穿越方向和阈值类型（固定值、最大值的比例）分别保存在有序数组中，值变化时二分查找被穿越的区间
+    private ThresholdIndex absoluteThresholds;
+    private ThresholdIndex fractionThresholds;
+    private int thresholdCount;
+    private ObservableDouble.Subscription thresholdHook;
+
+    /**
+     * 阈值的穿越方向
+     */
+    public enum Crossing {
+        // 从高于阈值变为不高于阈值，如HP降到0
+        DOWN,
+        // 从低于阈值变为不低于阈值，如能量恢复到技能消耗
+        UP
+    }
+
+    /**
+     * 阈值被穿越时的回调
+     */
+    @FunctionalInterface
+    public interface ThresholdListener {
+        /**
+         * @param resource 资源值
+         * @param oldValue 变化前的值
+         * @param newValue 变化后的值
+         */
+        void onThresholdCrossed(ResourceValue resource, double oldValue, double newValue);
+    }
+
+    /**
+     * 一个已注册的阈值，关闭后不再回调，重复关闭不会产生效果
+     */
+    public final class ThresholdSubscription implements AutoCloseable {
+        private final double threshold;
+        private final boolean fraction;
+        private final Crossing crossing;
+        private final ThresholdListener listener;
+        private boolean active = true;
+
+        private ThresholdSubscription(double threshold, boolean fraction, Crossing crossing, ThresholdListener listener) {
+            this.threshold = threshold;
+            this.fraction = fraction;
+            this.crossing = crossing;
+            this.listener = listener;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        // 阈值是否为当前最大值的比例
+        public boolean isFraction() {
+            return fraction;
+        }
+
+        public Crossing getCrossing() {
+            return crossing;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        @Override
+        public void close() {
+            if (active) {
+                active = false;
+                removeThreshold(this);
+            }
+        }
+    }
+
+    /**
+     * 同一种阈值的两个方向的索引
+     */
+    private static final class ThresholdIndex {
+        private final ThresholdList down = new ThresholdList();
+        private final ThresholdList up = new ThresholdList();
+
+        private ThresholdList list(Crossing crossing) {
+            return crossing == Crossing.DOWN ? down : up;
+        }
+    }
+
+    /**
+     * 按阈值升序排列的订阅，阈值和订阅都保存在数组中并写时复制：
+     * 查找被穿越的区间只做二分查找，不装箱也不分配对象，回调中可以安全地增删阈值
+     */
+    private static final class ThresholdList {
+        private static final double[] NO_KEYS = new double[0];
+        private static final ThresholdSubscription[][] NO_ENTRIES = new ThresholdSubscription[0][];
+
+        private double[] keys = NO_KEYS;
+        // entries[i]为阈值keys[i]上的所有订阅
+        private ThresholdSubscription[][] entries = NO_ENTRIES;
+
+        private void add(ThresholdSubscription subscription) {
+            double[] currentKeys = keys;
+            ThresholdSubscription[][] currentEntries = entries;
+            int index = lowerBound(currentKeys, subscription.threshold);
+            if (index < currentKeys.length && currentKeys[index] == subscription.threshold) {
+                ThresholdSubscription[] current = currentEntries[index];
+                ThresholdSubscription[] updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = subscription;
+                ThresholdSubscription[][] updatedEntries = currentEntries.clone();
+                updatedEntries[index] = updated;
+                entries = updatedEntries;
+                return;
+            }
+            double[] updatedKeys = new double[currentKeys.length + 1];
+            ThresholdSubscription[][] updatedEntries = new ThresholdSubscription[currentKeys.length + 1][];
+            System.arraycopy(currentKeys, 0, updatedKeys, 0, index);
+            System.arraycopy(currentEntries, 0, updatedEntries, 0, index);
+            updatedKeys[index] = subscription.threshold;
+            updatedEntries[index] = new ThresholdSubscription[]{subscription};
+            System.arraycopy(currentKeys, index, updatedKeys, index + 1, currentKeys.length - index);
+            System.arraycopy(currentEntries, index, updatedEntries, index + 1, currentKeys.length - index);
+            keys = updatedKeys;
+            entries = updatedEntries;
+        }
+
+        private void remove(ThresholdSubscription subscription) {
+            double[] currentKeys = keys;
+            int index = lowerBound(currentKeys, subscription.threshold);
+            if (index == currentKeys.length || currentKeys[index] != subscription.threshold) {
+                return;
+            }
+            ThresholdSubscription[] current = entries[index];
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] != subscription) {
+                    continue;
+                }
+                if (current.length > 1) {
+                    ThresholdSubscription[] updated = new ThresholdSubscription[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    ThresholdSubscription[][] updatedEntries = entries.clone();
+                    updatedEntries[index] = updated;
+                    entries = updatedEntries;
+                    return;
+                }
+                int remaining = currentKeys.length - 1;
+                double[] updatedKeys = remaining == 0 ? NO_KEYS : new double[remaining];
+                ThresholdSubscription[][] updatedEntries = remaining == 0 ? NO_ENTRIES : new ThresholdSubscription[remaining][];
+                System.arraycopy(currentKeys, 0, updatedKeys, 0, index);
+                System.arraycopy(entries, 0, updatedEntries, 0, index);
+                System.arraycopy(currentKeys, index + 1, updatedKeys, index, remaining - index);
+                System.arraycopy(entries, index + 1, updatedEntries, index, remaining - index);
+                keys = updatedKeys;
+                entries = updatedEntries;
+                return;
+            }
+        }
+
+        // 第一个不小于value的阈值下标
+        private static int lowerBound(double[] keys, double value) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // 第一个大于value的阈值下标
+        private static int upperBound(double[] keys, double value) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
 
     // 用于修改器标签的过滤方式枚举
     enum tagFilter{
@@ -21,6 +222,16 @@ public class ResourceValue {
     //空构造器
     public ResourceValue(){};
 
+    // 替换当前值对象，已注册的阈值改为监听新对象。
+    public void setValue(ObservableDouble value) {
+        if (thresholdHook != null) {
+            thresholdHook.close();
+            thresholdHook = value.addChangeListener(this::onValueChanged);
+        }
+        this.value = value;
+        scheduleRegenWakeup();
+    }
+
     //fromDTO() 构造器
     public ResourceValue(ValueModifier baseModifier, double currentValue) {
         this.baseMaxValue = baseModifier;
@@ -46,6 +257,11 @@ public class ResourceValue {
         baseMaxValue.setBaseValue(value,reason);
     }
 
+    // 重设基础最大值，不记录修改历史，用于按等级成长等推导出的值。
+    public void resetBaseMaxValue(double value) {
+        baseMaxValue.resetBaseValue(value);
+    }
+
     // 为当前最大值添加一个加法修正（modifier），带id、标签和优先级。
     public void addCurrentMaxValueAddModifier(double value,String id,String tag,int priority) {
         baseMaxValue.addAdditiveModifier(id,value,tag,priority);
@@ -63,11 +279,13 @@ public class ResourceValue {
 
     // 将当前值恢复到最大值（如满血状态）。
     public void refill(){
+        syncRegeneration();
         value.set(currentMaxValue.getValue());
     }
 
     // 增加资源值，不超过当前最大值上限，若达到上限则返回false。
     public boolean addValue(double addValue){
+        syncRegeneration();
         double newValue = value.getValue() + addValue < currentMaxValue.getValue() ? (value.doubleValue() + addValue):currentMaxValue.getValue();
         value.set(newValue);
         return value.getValue() + addValue < currentMaxValue.getValue();
@@ -75,6 +293,7 @@ public class ResourceValue {
 
     // 减少资源值，不低于0，若减少后值为0则返回false。
     public boolean removeValue(double removeValue){
+        syncRegeneration();
         double newValue = value.getValue() - removeValue > 0 ? (value.doubleValue() - removeValue):0;
         value.set(newValue);
         return value.getValue() - removeValue > 0;
@@ -82,14 +301,24 @@ public class ResourceValue {
 
     // 检查资源是否足够减少指定的值。
     public boolean canRemoveValue(double removeValue){
-        return value.getValue() - removeValue >= 0;
+        return getCurrentValue() - removeValue >= 0;
     }
 
-    // 根据tagFilter和tag获取对应的ModifiedValue实例。
+    // 根据tagFilter和tag获取对应的ModifiedValue实例，同一过滤方式和标签返回同一个实例。
     public ValueModifier.ModifiedValue getModifiedValue(tagFilter tf,String tag){
         return switch (tf) {
-            case INCLUDE -> baseMaxValue.createModifiedValueForTag(tag);
-            case EXCLUDE -> baseMaxValue.createModifiedValueExcludingTag(tag);
+            case INCLUDE -> {
+                if (includeTagValues == null) {
+                    includeTagValues = new HashMap<>();
+                }
+                yield includeTagValues.computeIfAbsent(tag, baseMaxValue::createModifiedValueForTag);
+            }
+            case EXCLUDE -> {
+                if (excludeTagValues == null) {
+                    excludeTagValues = new HashMap<>();
+                }
+                yield excludeTagValues.computeIfAbsent(tag, baseMaxValue::createModifiedValueExcludingTag);
+            }
             default -> throw new RuntimeException("Unknown tag filter");
         };
     }
@@ -106,15 +335,327 @@ public class ResourceValue {
 
     // 清除所有修正器并同步当前值到最新的最大值。
     public void unifiedAll(){
+        syncRegeneration();
         baseMaxValue.clearAllModifiers();
         value.set(currentMaxValue.getValue());
     }
 
-    // 获取当前资源的ObservableDouble对象。
+    // 获取当前资源的ObservableDouble对象。开启自然恢复时其中是最近一次写入时的值，需要最新值请使用getCurrentValue()。
     public ObservableDouble getValue() {
         return value;
     }
 
+    // 获取当前资源值，包含上次写入以来的自然恢复，不会写回，也不会触发监听者和阈值回调。
+    public double getCurrentValue() {
+        double stored = value.getValue();
+        if (regenTickSource == null) {
+            return stored;
+        }
+        long elapsed = regenTickSource.getAsLong() - regenLastTick;
+        return elapsed > 0 ? regenerate(stored, elapsed) : stored;
+    }
+
+    /**
+     * 开启自然恢复，之前的恢复量先按旧速度结算
+     * 恢复过程中穿越的阈值在下一次写入或syncRegeneration()时才回调，需要及时回调时请使用计时器开启
+     * @param ratePerTick 每刻恢复量，负数表示每刻流失
+     * @param tickSource 当前刻数的来源
+     */
+    public void setRegeneration(double ratePerTick, LongSupplier tickSource) {
+        if (tickSource == null) {
+            throw new IllegalArgumentException("刻数来源不能为空");
+        }
+        startRegeneration(ratePerTick, tickSource, null);
+    }
+
+    /**
+     * 使用计时器的刻数开启自然恢复，按回合计时时每回合恢复ratePerTick
+     * 注册了阈值时在计时器上安排下一个阈值被穿越的那一刻结算，推进计时器即可触发回调，不需要定时调用syncRegeneration()
+     * @param ratePerTick 每刻恢复量，负数表示每刻流失
+     * @param timer 计时器
+     */
+    public void setRegeneration(double ratePerTick, ModifierTimer timer) {
+        if (timer == null) {
+            throw new IllegalArgumentException("计时器不能为空");
+        }
+        startRegeneration(ratePerTick, timer::getCurrentTick, timer);
+    }
+
+    private void startRegeneration(double ratePerTick, LongSupplier tickSource, ModifierTimer timer) {
+        syncRegeneration();
+        this.regenRate = ratePerTick;
+        this.regenTickSource = tickSource;
+        this.regenLastTick = tickSource.getAsLong();
+        this.regenTimer = timer;
+        scheduleRegenWakeup();
+    }
+
+    // 停止自然恢复，已经恢复的量会保留。
+    public void clearRegeneration() {
+        syncRegeneration();
+        regenTickSource = null;
+        regenRate = 0;
+        regenTimer = null;
+        scheduleRegenWakeup();
+    }
+
+    // 获取每刻恢复量，没有开启自然恢复时为0。
+    public double getRegenerationRate() {
+        return regenTickSource == null ? 0 : regenRate;
+    }
+
+    // 把上次写入以来的自然恢复写回当前值，监听者会收到一次变化通知。
+    public void syncRegeneration() {
+        if (regenTickSource == null) {
+            return;
+        }
+        long now = regenTickSource.getAsLong();
+        long elapsed = now - regenLastTick;
+        if (elapsed <= 0) {
+            return;
+        }
+        regenLastTick = now;
+        value.set(regenerate(value.getValue(), elapsed));
+    }
+
+    /**
+     * 重新安排自然恢复穿越下一个阈值时的结算，之前的安排取消
+     * 只在用计时器开启了自然恢复且注册了阈值时安排；比例阈值按安排时的最大值换算，
+     * 之后单独修改最大值可能让结算提前（此时没有阈值被穿越，重新安排）或推迟到下一次写入
+     */
+    private void scheduleRegenWakeup() {
+        if (regenWakeup != null) {
+            regenWakeup.cancel();
+            regenWakeup = null;
+        }
+        if (regenTimer == null || thresholdCount == 0 || regenRate == 0) {
+            return;
+        }
+        long elapsed = ticksToNextThreshold();
+        if (elapsed > 0) {
+            regenWakeup = regenTimer.scheduleAt(regenLastTick + elapsed, this::onRegenWakeup);
+        }
+    }
+
+    private void onRegenWakeup() {
+        regenWakeup = null;
+        // 值发生变化时阈值回调之前已经重新安排，这里再安排一次以覆盖值没有变化的情况
+        syncRegeneration();
+        scheduleRegenWakeup();
+    }
+
+    /**
+     * 按当前速度推算从regenLastTick起穿越下一个阈值需要的刻数
+     * @return 刻数，不会再穿越任何阈值时返回-1
+     */
+    private long ticksToNextThreshold() {
+        double stored = value.getValue();
+        double max = currentMaxValue.getValue();
+        boolean up = regenRate > 0;
+        // 恢复到最大值或流失到0后不再变化
+        if (up ? stored >= max : stored <= 0) {
+            return -1;
+        }
+        Crossing crossing = up ? Crossing.UP : Crossing.DOWN;
+        long ticks = -1;
+        if (absoluteThresholds != null) {
+            ticks = ticksUntil(absoluteThresholds.list(crossing).keys, stored, 1);
+        }
+        if (fractionThresholds != null && max > 0) {
+            long fractionTicks = ticksUntil(fractionThresholds.list(crossing).keys, stored, max);
+            if (fractionTicks > 0 && (ticks < 0 || fractionTicks < ticks)) {
+                ticks = fractionTicks;
+            }
+        }
+        return ticks;
+    }
+
+    /**
+     * 推算恢复时穿越有序阈值中最近的一个需要的刻数，判断方式与onValueChanged相同
+     * @param keys 阈值，已按升序排列
+     * @param stored 当前值
+     * @param scale 阈值的单位，固定值为1，比例为最大值
+     * @return 刻数，到达上下限之前不会穿越时返回-1
+     */
+    private long ticksUntil(double[] keys, double stored, double scale) {
+        boolean up = regenRate > 0;
+        double position = stored / scale;
+        int index = up ? ThresholdList.upperBound(keys, position) : ThresholdList.lowerBound(keys, position) - 1;
+        if (index < 0 || index >= keys.length) {
+            return -1;
+        }
+        double threshold = keys[index];
+        double estimate = Math.ceil((threshold * scale - stored) / regenRate);
+        if (!(estimate < Long.MAX_VALUE / 2)) {
+            return -1;
+        }
+        long elapsed = Math.max(1, (long) estimate);
+        // 推算的刻数可能因浮点误差少一刻；到达上下限仍未穿越时不会再穿越
+        for (int i = 0; i < 2; i++, elapsed++) {
+            double reached = regenerate(stored, elapsed) / scale;
+            if (up ? reached >= threshold : reached <= threshold) {
+                return elapsed;
+            }
+        }
+        return -1;
+    }
+
+    // 按经过的刻数推算恢复后的值：恢复不超过当前最大值，流失不低于0；已超过最大值的部分不会因恢复而减少。
+    private double regenerate(double stored, long elapsed) {
+        double regenerated = stored + regenRate * elapsed;
+        if (regenRate > 0) {
+            double max = currentMaxValue.getValue();
+            return stored >= max ? stored : Math.min(regenerated, max);
+        }
+        return Math.max(regenerated, 0);
+    }
+
+    /**
+     * 注册固定值阈值，当前值穿越阈值时回调
+     * 只在当前值变化时检查，注册时已经越过的阈值不会回调；
+     * 用计时器开启的自然恢复穿越阈值时，在计时器推进到穿越的那一刻回调；
+     * 其他刻数来源的自然恢复在下一次写入或syncRegeneration()时回调，读取getCurrentValue()不会触发
+     * @param threshold 阈值，如0表示HP耗尽
+     * @param crossing 穿越方向
+     * @param listener 回调
+     * @return 订阅，关闭后不再回调
+     */
+    public ThresholdSubscription addThreshold(double threshold, Crossing crossing, ThresholdListener listener) {
+        return addThreshold(threshold, false, crossing, listener);
+    }
+
+    /**
+     * 注册按当前最大值比例计算的阈值，如0.3表示30%
+     * 只在当前值变化时按变化后的最大值换算检查，单独修改最大值不会回调
+     * @param fraction 比例
+     * @param crossing 穿越方向
+     * @param listener 回调
+     * @return 订阅，关闭后不再回调
+     */
+    public ThresholdSubscription addFractionThreshold(double fraction, Crossing crossing, ThresholdListener listener) {
+        return addThreshold(fraction, true, crossing, listener);
+    }
+
+    private ThresholdSubscription addThreshold(double threshold, boolean fraction, Crossing crossing, ThresholdListener listener) {
+        if (!Double.isFinite(threshold)) {
+            throw new IllegalArgumentException("阈值必须是有限数: " + threshold);
+        }
+        if (crossing == null || listener == null) {
+            throw new IllegalArgumentException("穿越方向和回调不能为空");
+        }
+        // 之前的自然恢复按没有阈值时的规则结算，不补发回调
+        syncRegeneration();
+        // 加0.0把-0.0统一为0.0
+        ThresholdSubscription subscription = new ThresholdSubscription(threshold + 0.0, fraction, crossing, listener);
+        if (fraction) {
+            if (fractionThresholds == null) {
+                fractionThresholds = new ThresholdIndex();
+            }
+            fractionThresholds.list(crossing).add(subscription);
+        } else {
+            if (absoluteThresholds == null) {
+                absoluteThresholds = new ThresholdIndex();
+            }
+            absoluteThresholds.list(crossing).add(subscription);
+        }
+        if (thresholdCount++ == 0) {
+            thresholdHook = value.addChangeListener(this::onValueChanged);
+        }
+        scheduleRegenWakeup();
+        return subscription;
+    }
+
+    private void removeThreshold(ThresholdSubscription subscription) {
+        (subscription.fraction ? fractionThresholds : absoluteThresholds).list(subscription.crossing).remove(subscription);
+        if (--thresholdCount == 0) {
+            thresholdHook.close();
+            thresholdHook = null;
+        }
+        scheduleRegenWakeup();
+    }
+
+    // 获取已注册的阈值数量。
+    public int getThresholdCount() {
+        return thresholdCount;
+    }
+
+    /**
+     * 当前值变化时找出被穿越的阈值，按穿越的先后顺序回调
+     * 下降时为[newValue, oldValue)内的DOWN阈值，从高到低；上升时为(oldValue, newValue]内的UP阈值，从低到高。
+     * 两种阈值各自已经有序，按换算成固定值后的位置归并，同一位置固定值阈值在前；
+     * 没有阈值被穿越时不分配任何对象（用计时器开启自然恢复时重新安排结算除外）。
+     */
+    private void onValueChanged(double oldValue, double newValue) {
+        // 先按变化后的值安排下一次自然恢复结算，回调中再次写入时以最后一次为准
+        scheduleRegenWakeup();
+        boolean down = newValue < oldValue;
+
+        double[] absoluteKeys = ThresholdList.NO_KEYS;
+        ThresholdSubscription[][] absoluteEntries = ThresholdList.NO_ENTRIES;
+        int absoluteFrom = 0;
+        int absoluteTo = 0;
+        if (absoluteThresholds != null) {
+            ThresholdList list = absoluteThresholds.list(down ? Crossing.DOWN : Crossing.UP);
+            absoluteKeys = list.keys;
+            absoluteEntries = list.entries;
+            absoluteFrom = down ? ThresholdList.lowerBound(absoluteKeys, newValue) : ThresholdList.upperBound(absoluteKeys, oldValue);
+            absoluteTo = down ? ThresholdList.lowerBound(absoluteKeys, oldValue) : ThresholdList.upperBound(absoluteKeys, newValue);
+        }
+
+        double[] fractionKeys = ThresholdList.NO_KEYS;
+        ThresholdSubscription[][] fractionEntries = ThresholdList.NO_ENTRIES;
+        int fractionFrom = 0;
+        int fractionTo = 0;
+        double max = 0;
+        if (fractionThresholds != null) {
+            max = currentMaxValue.getValue();
+            if (max > 0) {
+                ThresholdList list = fractionThresholds.list(down ? Crossing.DOWN : Crossing.UP);
+                fractionKeys = list.keys;
+                fractionEntries = list.entries;
+                double oldFraction = oldValue / max;
+                double newFraction = newValue / max;
+                fractionFrom = down ? ThresholdList.lowerBound(fractionKeys, newFraction) : ThresholdList.upperBound(fractionKeys, oldFraction);
+                fractionTo = down ? ThresholdList.lowerBound(fractionKeys, oldFraction) : ThresholdList.upperBound(fractionKeys, newFraction);
+            }
+        }
+
+        int absoluteCount = absoluteTo - absoluteFrom;
+        int fractionCount = fractionTo - fractionFrom;
+        if (absoluteCount <= 0 && fractionCount <= 0) {
+            return;
+        }
+        for (int i = 0, j = 0; i < absoluteCount || j < fractionCount; ) {
+            int absoluteIndex = down ? absoluteTo - 1 - i : absoluteFrom + i;
+            int fractionIndex = down ? fractionTo - 1 - j : fractionFrom + j;
+            boolean takeAbsolute;
+            if (j >= fractionCount) {
+                takeAbsolute = true;
+            } else if (i >= absoluteCount) {
+                takeAbsolute = false;
+            } else {
+                double absolutePosition = absoluteKeys[absoluteIndex];
+                double fractionPosition = fractionKeys[fractionIndex] * max;
+                takeAbsolute = down ? absolutePosition >= fractionPosition : absolutePosition <= fractionPosition;
+            }
+            if (takeAbsolute) {
+                fireThresholds(absoluteEntries[absoluteIndex], oldValue, newValue);
+                i++;
+            } else {
+                fireThresholds(fractionEntries[fractionIndex], oldValue, newValue);
+                j++;
+            }
+        }
+    }
+
+    private void fireThresholds(ThresholdSubscription[] subscriptions, double oldValue, double newValue) {
+        for (ThresholdSubscription subscription : subscriptions) {
+            if (subscription.active) {
+                subscription.listener.onThresholdCrossed(this, oldValue, newValue);
+            }
+        }
+    }
+
     // 获取基础最大值（不含任何修正器影响）。
     public double getBaseValue() {
         return baseMaxValue.getCurrentBaseValue();
@@ -0,0 +1,380 @@
+package com.main.classes;
+
+import com.main.classes.ValueModifier.ModifierType;
+
+import java.util.*;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * 属性依赖图：让一个ValueModifier的最终值通过公式驱动另一个ValueModifier上的修改器
+ * 例如"攻击力增加最大HP的10%"可以表示为从HP上限到攻击力的一条连接。
+ * 源属性提交修改后，只有从它可达的属性会按拓扑顺序各重新计算一次；
+ * 输入值没有变化的连接不会触发下游更新，形成循环的连接会被拒绝。
+ * 连接生成的修改器被其他操作移除（如clearAllModifiers）时，目标属性提交修改后会立即重新设置；
+ * 要去掉这个修改器请断开连接。
+ * 依赖图不是线程安全的，不支持ConcurrentValueModifier。
+ */
+public final class StatGraph {
+    private final Map<ValueModifier, Node> nodes = new IdentityHashMap<>();
+    // 待重新计算的属性，按拓扑序号出队，保证每个属性在它的所有上游之后计算
+    private final PriorityQueue<Node> pending = new PriorityQueue<>(Comparator.comparingInt(node -> node.rank));
+    private boolean propagating = false;
+
+    /**
+     * 图中的一个属性
+     */
+    static final class Node {
+        private final StatGraph graph;
+        private final ValueModifier value;
+        private final List<Link> incoming = new ArrayList<>();
+        private final List<Link> outgoing = new ArrayList<>();
+        private int rank;
+        private boolean queued;
+
+        private Node(StatGraph graph, ValueModifier value) {
+            this.graph = graph;
+            this.value = value;
+        }
+
+        void changed() {
+            graph.propagateFrom(this);
+        }
+    }
+
+    /**
+     * 属性之间的一条依赖连接
+     */
+    public final class Link {
+        private final Node source;
+        private final Node target;
+        private final ModifierType type;
+        private final String modifierId;
+        private final String tag;
+        private final int priority;
+        private final DoubleUnaryOperator formula;
+        // 上次计算时读取到的源属性最终值
+        private double lastInput = Double.NaN;
+        private boolean active = true;
+
+        private Link(Node source, Node target, ModifierType type, String modifierId, String tag,
+                     int priority, DoubleUnaryOperator formula) {
+            this.source = source;
+            this.target = target;
+            this.type = type;
+            this.modifierId = modifierId;
+            this.tag = tag;
+            this.priority = priority;
+            this.formula = formula;
+        }
+
+        public ValueModifier getSource() {
+            return source.value;
+        }
+
+        public ValueModifier getTarget() {
+            return target.value;
+        }
+
+        public String getModifierId() {
+            return modifierId;
+        }
+
+        public ModifierType getType() {
+            return type;
+        }
+
+        /**
+         * 获取上次计算时读取到的源属性最终值
+         * @return 源属性最终值
+         */
+        public double getLastInput() {
+            return lastInput;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        /**
+         * 断开连接并移除目标属性上对应的修改器
+         */
+        public void remove() {
+            unlink(this);
+        }
+
+        /**
+         * 源属性的值有变化，或修改器已从目标属性上移除时重新计算修改器
+         * @return 是否更新了修改器
+         */
+        private boolean refresh() {
+            double input = source.value.getFinalValue();
+            if (Double.compare(input, lastInput) == 0 && target.value.hasModifier(modifierId)) {
+                return false;
+            }
+            lastInput = input;
+            double modifierValue = formula.applyAsDouble(input);
+            ValueModifier targetValue = target.value;
+            switch (type) {
+                case ADDITIVE:
+                    targetValue.addAdditiveModifier(modifierId, modifierValue, tag, priority);
+                    break;
+                case MULTIPLICATIVE:
+                    targetValue.addMultiplicativeModifier(modifierId, modifierValue, tag, priority);
+                    break;
+                case BASE_MULTIPLICATIVE:
+                    targetValue.addBaseMultiplicativeModifier(modifierId, modifierValue, tag, priority);
+                    break;
+                case MIN_LIMIT:
+                    targetValue.addMinLimitModifier(modifierId, modifierValue, tag, priority);
+                    break;
+                case MAX_LIMIT:
+                    targetValue.addMaxLimitModifier(modifierId, modifierValue, tag, priority);
+                    break;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("依赖连接[%s, %s, 输入: %.2f]", modifierId, type.getDescription(), lastInput);
+        }
+    }
+
+    /**
+     * 添加一条依赖连接，使用默认优先级
+     * @see #link(ValueModifier, ValueModifier, ModifierType, String, String, int, DoubleUnaryOperator)
+     */
+    public Link link(ValueModifier source, ValueModifier target, ModifierType type,
+                     String modifierId, String tag, DoubleUnaryOperator formula) {
+        return link(source, target, type, modifierId, tag, ValueModifier.PRIORITY_NORMAL, formula);
+    }
+
+    /**
+     * 添加一条依赖连接：目标属性上ID为modifierId的修改器的值始终等于formula(源属性最终值)
+     * 连接建立后立即按源属性的当前值设置修改器
+     * @param source 源属性
+     * @param target 目标属性
+     * @param type 修改器类型
+     * @param modifierId 目标属性上修改器的ID
+     * @param tag 修改器标签
+     * @param priority 修改器优先级
+     * @param formula 由源属性最终值计算修改器值的公式
+     * @return 连接
+     * @throws IllegalArgumentException 属性已属于其他依赖图、是ConcurrentValueModifier，或连接会形成循环时
+     */
+    public Link link(ValueModifier source, ValueModifier target, ModifierType type,
+                     String modifierId, String tag, int priority, DoubleUnaryOperator formula) {
+        Objects.requireNonNull(type, "修改器类型不能为空");
+        Objects.requireNonNull(formula, "计算公式不能为空");
+        if (source == target) {
+            throw new IllegalArgumentException("属性不能依赖自身");
+        }
+        checkOwnership(source);
+        checkOwnership(target);
+        Node sourceNode = nodes.get(source);
+        Node targetNode = nodes.get(target);
+        if (sourceNode != null && targetNode != null && reaches(targetNode, sourceNode)) {
+            throw new IllegalArgumentException("属性依赖存在循环: " + modifierId);
+        }
+        for (Link existing : targetNode == null ? List.<Link>of() : targetNode.incoming) {
+            if (existing.modifierId.equals(modifierId)) {
+                throw new IllegalArgumentException("目标属性上已存在同ID的依赖连接: " + modifierId);
+            }
+        }
+
+        sourceNode = nodeFor(source);
+        targetNode = nodeFor(target);
+        Link link = new Link(sourceNode, targetNode, type, modifierId, tag, priority, formula);
+        sourceNode.outgoing.add(link);
+        targetNode.incoming.add(link);
+        updateRanks();
+
+        // 立即计算一次，目标属性提交修改后会继续向下游传播
+        link.refresh();
+        return link;
+    }
+
+    /**
+     * 断开依赖连接并移除目标属性上对应的修改器
+     * @param link 连接
+     */
+    public void unlink(Link link) {
+        if (!link.active) {
+            return;
+        }
+        link.active = false;
+        link.source.outgoing.remove(link);
+        link.target.incoming.remove(link);
+        releaseIfUnused(link.source);
+        releaseIfUnused(link.target);
+        updateRanks();
+        link.target.value.removeModifier(link.modifierId);
+    }
+
+    /**
+     * 断开所有依赖连接
+     */
+    public void clear() {
+        for (Node node : new ArrayList<>(nodes.values())) {
+            for (Link link : new ArrayList<>(node.outgoing)) {
+                unlink(link);
+            }
+        }
+    }
+
+    /**
+     * 获取指向某个属性的所有依赖连接
+     * @param target 目标属性
+     * @return 连接列表
+     */
+    public List<Link> getLinksTo(ValueModifier target) {
+        Node node = nodes.get(target);
+        return node == null ? List.of() : Collections.unmodifiableList(node.incoming);
+    }
+
+    /**
+     * 获取从某个属性出发的所有依赖连接
+     * @param source 源属性
+     * @return 连接列表
+     */
+    public List<Link> getLinksFrom(ValueModifier source) {
+        Node node = nodes.get(source);
+        return node == null ? List.of() : Collections.unmodifiableList(node.outgoing);
+    }
+
+    public boolean contains(ValueModifier value) {
+        return nodes.containsKey(value);
+    }
+
+    /**
+     * 源属性提交修改后重新计算受影响的下游属性
+     * 传播期间下游属性提交的修改只会加入待计算队列，由最外层的传播按拓扑顺序统一处理
+     */
+    private void propagateFrom(Node changed) {
+        if (!changed.queued && lostDerivedModifier(changed)) {
+            changed.queued = true;
+            pending.add(changed);
+        }
+        enqueueTargets(changed);
+        if (propagating) {
+            return;
+        }
+        propagating = true;
+        try {
+            Node node;
+            while ((node = pending.poll()) != null) {
+                node.queued = false;
+                refreshIncoming(node);
+            }
+        } finally {
+            propagating = false;
+            for (Node node : pending) {
+                node.queued = false;
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * 属性上是否有连接生成的修改器已被移除
+     */
+    private static boolean lostDerivedModifier(Node node) {
+        for (Link link : node.incoming) {
+            if (!link.target.value.hasModifier(link.modifierId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void enqueueTargets(Node node) {
+        for (Link link : node.outgoing) {
+            Node target = link.target;
+            if (!target.queued) {
+                target.queued = true;
+                pending.add(target);
+            }
+        }
+    }
+
+    /**
+     * 在一次批量修改中刷新指向该属性的所有连接，属性最多提交一次修改
+     */
+    private void refreshIncoming(Node node) {
+        try (ValueModifier.Transaction ignored = node.value.beginBatch()) {
+            for (Link link : node.incoming) {
+                link.refresh();
+            }
+        }
+    }
+
+    /**
+     * 判断从from出发沿依赖连接能否到达to
+     */
+    private static boolean reaches(Node from, Node to) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node == to) {
+                return true;
+            }
+            if (visited.add(node)) {
+                for (Link link : node.outgoing) {
+                    stack.push(link.target);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 重新计算拓扑序号：每个属性的序号都大于它所有上游属性的序号
+     */
+    private void updateRanks() {
+        Map<Node, Integer> inDegree = new IdentityHashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes.values()) {
+            inDegree.put(node, node.incoming.size());
+            if (node.incoming.isEmpty()) {
+                ready.add(node);
+            }
+        }
+        int rank = 0;
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            node.rank = rank++;
+            for (Link link : node.outgoing) {
+                int remaining = inDegree.merge(link.target, -1, Integer::sum);
+                if (remaining == 0) {
+                    ready.add(link.target);
+                }
+            }
+        }
+    }
+
+    private void checkOwnership(ValueModifier value) {
+        if (value instanceof ConcurrentValueModifier) {
+            throw new IllegalArgumentException("依赖图不支持并发ValueModifier");
+        }
+        if (value.graphNode != null && value.graphNode.graph != this) {
+            throw new IllegalArgumentException("属性已属于其他依赖图");
+        }
+    }
+
+    private Node nodeFor(ValueModifier value) {
+        return nodes.computeIfAbsent(value, v -> {
+            Node node = new Node(this, v);
+            v.graphNode = node;
+            return node;
+        });
+    }
+
+    private void releaseIfUnused(Node node) {
+        if (node.incoming.isEmpty() && node.outgoing.isEmpty()) {
+            nodes.remove(node.value);
+            node.value.graphNode = null;
+        }
+    }
+}
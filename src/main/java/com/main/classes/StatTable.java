@@ -0,0 +1,277 @@
+package com.main.classes;
+
+import com.main.classes.ValueModifier.ModifierType;
+
+import java.util.Arrays;
+
+/**
+ * 按列存储的宠物属性表，用于离线平衡测试中批量计算大量宠物的属性
+ * 每个属性的基础值和各类修改器的聚合结果分别保存在基本类型数组中，
+ * evaluateAll()在一个紧凑循环中计算所有行的最终值，计算公式与ValueModifier.getFinalValue()完全一致。
+ * 导入后修改器的变化不会同步到表中，需要重新导入对应的行。
+ */
+public final class StatTable {
+
+    /**
+     * 表中的属性列，顺序与PetStat.getValueModifiers()一致
+     */
+    public enum Stat {
+        MAX_HP("最大HP"),
+        MAX_ENERGY("最大能量"),
+        ATTACK("攻击"),
+        DEFENSE("防御");
+
+        private final String description;
+
+        Stat(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private static final Stat[] STATS = Stat.values();
+
+    /**
+     * 单个属性的各列数据
+     */
+    private static final class Columns {
+        double[] base;
+        double[] baseMultSum;
+        double[] additiveSum;
+        double[] multSum;
+        // 没有限制时分别为负无穷和正无穷，比较结果与没有限制器时相同
+        double[] minLimit;
+        double[] maxLimit;
+        // 最小值限制大于最大值限制时按优先级选出的值，没有冲突时为NaN
+        double[] conflictValue;
+        int[] precision;
+        boolean[] rounding;
+        double[] finalValue;
+
+        Columns(int capacity) {
+            resize(capacity);
+        }
+
+        void resize(int capacity) {
+            base = copy(base, capacity);
+            baseMultSum = copy(baseMultSum, capacity);
+            additiveSum = copy(additiveSum, capacity);
+            multSum = copy(multSum, capacity);
+            minLimit = copy(minLimit, capacity);
+            maxLimit = copy(maxLimit, capacity);
+            conflictValue = copy(conflictValue, capacity);
+            precision = precision == null ? new int[capacity] : Arrays.copyOf(precision, capacity);
+            rounding = rounding == null ? new boolean[capacity] : Arrays.copyOf(rounding, capacity);
+            finalValue = copy(finalValue, capacity);
+        }
+
+        private static double[] copy(double[] column, int capacity) {
+            return column == null ? new double[capacity] : Arrays.copyOf(column, capacity);
+        }
+    }
+
+    private final Columns[] columns = new Columns[STATS.length];
+    private int size;
+    private int capacity;
+
+    /**
+     * 创建属性表
+     * @param initialCapacity 初始行数容量
+     */
+    public StatTable(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("初始容量不能为负数: " + initialCapacity);
+        }
+        this.capacity = initialCapacity;
+        for (Stat stat : STATS) {
+            columns[stat.ordinal()] = new Columns(initialCapacity);
+        }
+    }
+
+    public StatTable() {
+        this(16);
+    }
+
+    /**
+     * 获取行数
+     * @return 行数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 从PetStat导入一行
+     * @param stat 宠物属性
+     * @return 新行的索引
+     */
+    public int addRow(PetStat stat) {
+        if (size == capacity) {
+            capacity = Math.max(16, capacity * 2);
+            for (Columns column : columns) {
+                column.resize(capacity);
+            }
+        }
+        int row = size++;
+        setRow(row, stat);
+        return row;
+    }
+
+    /**
+     * 用PetStat的当前状态覆盖一行
+     * @param row 行索引
+     * @param stat 宠物属性
+     */
+    public void setRow(int row, PetStat stat) {
+        checkRow(row);
+        ValueModifier[] values = stat.getValueModifiers();
+        for (Stat s : STATS) {
+            importValue(columns[s.ordinal()], row, values[s.ordinal()]);
+        }
+    }
+
+    private static void importValue(Columns c, int row, ValueModifier value) {
+        c.base[row] = value.getCurrentBaseValue();
+        c.baseMultSum[row] = value.aggregate(ModifierType.BASE_MULTIPLICATIVE).getSum();
+        c.additiveSum[row] = value.aggregate(ModifierType.ADDITIVE).getSum();
+        c.multSum[row] = value.aggregate(ModifierType.MULTIPLICATIVE).getSum();
+
+        ModifierAggregate minLimits = value.aggregate(ModifierType.MIN_LIMIT);
+        ModifierAggregate maxLimits = value.aggregate(ModifierType.MAX_LIMIT);
+        double minLimit = minLimits.getCount() > 0 ? minLimits.getMaxValue() : Double.NEGATIVE_INFINITY;
+        double maxLimit = maxLimits.getCount() > 0 ? maxLimits.getMinValue() : Double.POSITIVE_INFINITY;
+        c.minLimit[row] = minLimit;
+        c.maxLimit[row] = maxLimit;
+        if (minLimits.getCount() > 0 && maxLimits.getCount() > 0 && minLimit > maxLimit) {
+            // 冲突解决策略：使用优先级更高的限制器
+            c.conflictValue[row] = minLimits.getHeadPriority() <= maxLimits.getHeadPriority() ? minLimit : maxLimit;
+        } else {
+            c.conflictValue[row] = Double.NaN;
+        }
+
+        c.precision[row] = value.getCalculationPrecision();
+        c.rounding[row] = value.isRoundingForCalculation();
+        c.finalValue[row] = Double.NaN;
+    }
+
+    /**
+     * 把一行的基础值写回PetStat，修改器不会写回
+     * 导出的基础值由属性表推导，按resetBaseValue写回，不产生修改历史
+     * @param row 行索引
+     * @param stat 宠物属性
+     */
+    public void exportRow(int row, PetStat stat) {
+        checkRow(row);
+        ValueModifier[] values = stat.getValueModifiers();
+        try (ValueModifier.Transaction ignored = stat.beginBatch()) {
+            for (Stat s : STATS) {
+                values[s.ordinal()].resetBaseValue(columns[s.ordinal()].base[row]);
+            }
+        }
+    }
+
+    /**
+     * 计算所有行所有属性的最终值
+     */
+    public void evaluateAll() {
+        for (Stat stat : STATS) {
+            evaluate(stat);
+        }
+    }
+
+    /**
+     * 计算所有行某个属性的最终值
+     * 计算步骤与ValueModifier.calculateValue相同：基础值乘法、加法、普通乘法、最小值/最大值限制及冲突处理、计算精度
+     * @param stat 属性
+     */
+    public void evaluate(Stat stat) {
+        Columns c = columns[stat.ordinal()];
+        double[] base = c.base;
+        double[] baseMultSum = c.baseMultSum;
+        double[] additiveSum = c.additiveSum;
+        double[] multSum = c.multSum;
+        double[] minLimit = c.minLimit;
+        double[] maxLimit = c.maxLimit;
+        double[] conflictValue = c.conflictValue;
+        int[] precision = c.precision;
+        boolean[] rounding = c.rounding;
+        double[] finalValue = c.finalValue;
+        int rows = size;
+
+        for (int i = 0; i < rows; i++) {
+            double modifiedBase = base[i] * (1 + Math.max(baseMultSum[i], -0.99));
+            double result = (modifiedBase + additiveSum[i]) * (1 + Math.max(multSum[i], -0.99));
+            if (result < minLimit[i]) {
+                result = minLimit[i];
+            }
+            if (result > maxLimit[i]) {
+                result = maxLimit[i];
+            }
+            double conflict = conflictValue[i];
+            if (conflict == conflict) {
+                result = conflict;
+            }
+            finalValue[i] = precision[i] < 0
+                    ? result
+                    : ValueModifier.applyCalculationPrecision(result, precision[i], rounding[i]);
+        }
+    }
+
+    /**
+     * 获取最近一次计算得到的最终值
+     * @param row 行索引
+     * @param stat 属性
+     * @return 最终值，导入后尚未计算时为NaN
+     */
+    public double getFinalValue(int row, Stat stat) {
+        checkRow(row);
+        return columns[stat.ordinal()].finalValue[row];
+    }
+
+    /**
+     * 获取基础值
+     * @param row 行索引
+     * @param stat 属性
+     * @return 基础值
+     */
+    public double getBaseValue(int row, Stat stat) {
+        checkRow(row);
+        return columns[stat.ordinal()].base[row];
+    }
+
+    /**
+     * 设置基础值，需要重新计算后才会反映到最终值
+     * @param row 行索引
+     * @param stat 属性
+     * @param value 基础值
+     */
+    public void setBaseValue(int row, Stat stat, double value) {
+        checkRow(row);
+        columns[stat.ordinal()].base[row] = value;
+    }
+
+    /**
+     * 获取某个属性所有行的最终值
+     * @param stat 属性
+     * @return 最终值数组的副本
+     */
+    public double[] getFinalValues(Stat stat) {
+        return Arrays.copyOf(columns[stat.ordinal()].finalValue, size);
+    }
+
+    /**
+     * 清空所有行，保留已分配的容量
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Invalid row index: " + row);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.main.classes;
+
+/**
+ * 只读的数值属性，ValueModifier和FixedValue的公共接口
+ * 只需要读取最终值的地方（如技能消耗）应依赖该接口，不会被修改的值可以使用开销更小的FixedValue。
+ */
+public interface StatValue {
+
+    /**
+     * 获取最终值
+     * @return 最终值
+     */
+    double getFinalValue();
+
+    /**
+     * 获取格式化的值
+     * @return 格式化后的字符串
+     */
+    String getFormattedValue();
+
+    /**
+     * 把格式化的值追加到sb
+     * @param sb 目标
+     * @return sb
+     */
+    StringBuilder appendFormattedValue(StringBuilder sb);
+}
@@ -0,0 +1,88 @@
+package com.main.classes;
+
+import com.main.classes.ValueModifier.TemporaryModifier;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * 按标签ID编译的修改器过滤条件
+ * 标签集合保存为位集，判断修改器是否匹配只需一次数组读取和位运算；
+ * 同时实现Predicate，可以在任何接受自定义条件的地方使用
+ */
+public final class TagFilter implements Predicate<TemporaryModifier> {
+    private static final TagFilter ALL = new TagFilter(new long[0], true);
+
+    private final long[] words;
+    // true表示匹配不在集合中的标签
+    private final boolean exclude;
+
+    private TagFilter(long[] words, boolean exclude) {
+        this.words = words;
+        this.exclude = exclude;
+    }
+
+    /**
+     * 匹配所有修改器的条件
+     * @return 过滤条件
+     */
+    public static TagFilter all() {
+        return ALL;
+    }
+
+    /**
+     * 只匹配带有指定标签之一的修改器
+     * @param tags 标签
+     * @return 过滤条件
+     */
+    public static TagFilter including(String... tags) {
+        return new TagFilter(toBits(tags), false);
+    }
+
+    /**
+     * 匹配不带有任何指定标签的修改器
+     * @param tags 标签
+     * @return 过滤条件
+     */
+    public static TagFilter excluding(String... tags) {
+        return new TagFilter(toBits(tags), true);
+    }
+
+    private static long[] toBits(String[] tags) {
+        long[] bits = new long[0];
+        for (String tag : tags) {
+            int id = TagRegistry.idOf(tag);
+            int word = id >>> 6;
+            if (word >= bits.length) {
+                bits = Arrays.copyOf(bits, word + 1);
+            }
+            bits[word] |= 1L << id;
+        }
+        return bits;
+    }
+
+    /**
+     * 判断标签ID是否匹配
+     * @param tagId 标签ID
+     * @return 是否匹配
+     */
+    public boolean matches(int tagId) {
+        int word = tagId >>> 6;
+        boolean inSet = word < words.length && (words[word] & (1L << tagId)) != 0;
+        return inSet != exclude;
+    }
+
+    @Override
+    public boolean test(TemporaryModifier modifier) {
+        return matches(modifier.getTagId());
+    }
+
+    /**
+     * 取反后的过滤条件
+     * @return 过滤条件
+     */
+    @Override
+    public TagFilter negate() {
+        return new TagFilter(words, !exclude);
+    }
+}
@@ -0,0 +1,185 @@
+package com.main.classes;
+
+import com.main.classes.ValueModifier.TemporaryModifier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 临时修改器的标签索引
+ * 按完整标签把修改器分组（每组带有自己的聚合结果），并在以"."分隔的标签段上维护一棵前缀树，
+ * 使按标签或标签前缀查找修改器的代价只与匹配的修改器数量有关
+ */
+final class TagIndex {
+    private final Map<String, ModifierGroup> groups = new HashMap<>();
+    private final Node root = new Node(null, null);
+
+    /**
+     * 将修改器加入索引
+     * @param modifier 修改器
+     */
+    void add(TemporaryModifier modifier) {
+        String tag = modifier.getTag();
+        ModifierGroup group = groups.get(tag);
+        if (group == null) {
+            group = new ModifierGroup();
+            groups.put(tag, group);
+            if (tag != null) {
+                nodeFor(tag).group = group;
+            }
+        }
+        group.put(modifier);
+    }
+
+    /**
+     * 将修改器移出索引，标签下没有修改器时同时清理前缀树中的空节点
+     * @param modifier 修改器
+     */
+    void remove(TemporaryModifier modifier) {
+        String tag = modifier.getTag();
+        ModifierGroup group = groups.get(tag);
+        if (group == null || !group.remove(modifier) || !group.isEmpty()) {
+            return;
+        }
+        groups.remove(tag);
+        if (tag != null) {
+            Node node = findNode(tag);
+            node.group = null;
+            prune(node);
+        }
+    }
+
+    /**
+     * 修改器优先级改变后更新所在标签组中的排序
+     * @param modifier 修改器
+     */
+    void priorityChanged(TemporaryModifier modifier) {
+        ModifierGroup group = groups.get(modifier.getTag());
+        if (group != null) {
+            group.priorityChanged(modifier);
+        }
+    }
+
+    void clear() {
+        groups.clear();
+        root.children = null;
+    }
+
+    /**
+     * 获取标签完全匹配的修改器组
+     * @param tag 标签
+     * @return 修改器组，没有则返回null
+     */
+    ModifierGroup get(String tag) {
+        return groups.get(tag);
+    }
+
+    /**
+     * 收集标签以指定字符串开头的所有修改器，与String.startsWith的匹配规则一致
+     * @param prefix 标签前缀
+     * @return 匹配的修改器列表
+     */
+    List<TemporaryModifier> collectByPrefix(String prefix) {
+        List<TemporaryModifier> result = new ArrayList<>();
+        // 前缀中最后一个"."之前的部分必须是完整的标签段，之后的部分只需是某个子节点标签段的前缀
+        Node node = root;
+        int start = 0;
+        int dot;
+        while ((dot = prefix.indexOf('.', start)) >= 0) {
+            node = node.child(prefix.substring(start, dot));
+            if (node == null) {
+                return result;
+            }
+            start = dot + 1;
+        }
+        String partial = prefix.substring(start);
+        if (node.children == null) {
+            return result;
+        }
+        for (Map.Entry<String, Node> entry : node.children.tailMap(partial, true).entrySet()) {
+            if (!entry.getKey().startsWith(partial)) {
+                break;
+            }
+            collectSubtree(entry.getValue(), result);
+        }
+        return result;
+    }
+
+    private void collectSubtree(Node node, List<TemporaryModifier> result) {
+        if (node.group != null) {
+            for (ValueModifier.ModifierType type : ValueModifier.ModifierType.values()) {
+                result.addAll(node.group.modifiers(type).values());
+            }
+        }
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                collectSubtree(child, result);
+            }
+        }
+    }
+
+    private Node nodeFor(String tag) {
+        Node node = root;
+        int start = 0;
+        while (true) {
+            int dot = tag.indexOf('.', start);
+            String segment = dot < 0 ? tag.substring(start) : tag.substring(start, dot);
+            Node child = node.child(segment);
+            if (child == null) {
+                child = new Node(node, segment);
+                if (node.children == null) {
+                    node.children = new TreeMap<>();
+                }
+                node.children.put(segment, child);
+            }
+            node = child;
+            if (dot < 0) {
+                return node;
+            }
+            start = dot + 1;
+        }
+    }
+
+    private Node findNode(String tag) {
+        Node node = root;
+        int start = 0;
+        while (node != null) {
+            int dot = tag.indexOf('.', start);
+            node = node.child(dot < 0 ? tag.substring(start) : tag.substring(start, dot));
+            if (dot < 0) {
+                return node;
+            }
+            start = dot + 1;
+        }
+        return null;
+    }
+
+    private void prune(Node node) {
+        while (node != root && node.group == null && (node.children == null || node.children.isEmpty())) {
+            node.parent.children.remove(node.segment);
+            node = node.parent;
+        }
+    }
+
+    /**
+     * 前缀树节点，对应一个标签段
+     */
+    private static final class Node {
+        private final Node parent;
+        private final String segment;
+        private TreeMap<String, Node> children;
+        private ModifierGroup group;
+
+        Node(Node parent, String segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+
+        Node child(String segment) {
+            return children == null ? null : children.get(segment);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.main.classes;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全局标签注册表，将修改器标签字符串驻留为从1开始的小整数ID
+ * 同一字符串始终得到同一ID，ID一经分配不会回收，因此只适合数量有限的标签词汇
+ */
+public final class TagRegistry {
+    // null标签使用的保留ID
+    public static final int NULL_TAG_ID = 0;
+
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int nextId = 1;
+
+    private TagRegistry() {}
+
+    /**
+     * 获取标签的ID，首次出现的标签会分配新的ID
+     * @param tag 标签
+     * @return 标签ID
+     */
+    public static int idOf(String tag) {
+        if (tag == null) {
+            return NULL_TAG_ID;
+        }
+        Integer id = IDS.get(tag);
+        if (id != null) {
+            return id;
+        }
+        return register(tag);
+    }
+
+    private static synchronized int register(String tag) {
+        Integer id = IDS.get(tag);
+        if (id != null) {
+            return id;
+        }
+        int newId = nextId++;
+        String[] current = names;
+        if (newId >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[newId] = tag;
+        names = current;
+        IDS.put(tag, newId);
+        return newId;
+    }
+
+    /**
+     * 获取ID对应的标签
+     * @param id 标签ID
+     * @return 标签，未分配的ID或NULL_TAG_ID返回null
+     */
+    public static String nameOf(int id) {
+        String[] current = names;
+        return id > 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * 获取已分配的标签数量
+     * @return 标签数量
+     */
+    public static synchronized int size() {
+        return nextId - 1;
+    }
+}
@@ -0,0 +1,189 @@
+package com.main.classes;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 数值格式化工具，供状态显示等频繁调用的场景使用
+ * appendFixed的输出与String.format("%.nf")完全一致（包括默认格式化语言环境的小数点和数字、-0.0和四舍五入规则），
+ * 但直接写入调用方提供的StringBuilder，不创建格式化器和中间字符串；
+ * 自定义模式使用按线程缓存的DecimalFormat，10的幂使用预先计算的表。
+ */
+public final class ValueFormatter {
+    // 10^0到10^22都能被double精确表示，与Math.pow(10, n)的结果相同
+    private static final double[] POW10 = new double[23];
+    // 整数部分和小数部分合计不超过该位数时走快速路径，保证最短十进制表示可以由整数精确推出
+    private static final long FAST_PATH_LIMIT = 100_000_000_000_000L;
+
+    static {
+        double value = 1;
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = value;
+            value *= 10;
+        }
+    }
+
+    private static final ThreadLocal<Map<String, DecimalFormat>> DECIMAL_FORMATS = ThreadLocal.withInitial(HashMap::new);
+    private static final ThreadLocal<StringBuffer> FORMAT_BUFFER = ThreadLocal.withInitial(StringBuffer::new);
+    private static final FieldPosition FIELD_POSITION = new FieldPosition(0);
+
+    // 最近使用的格式化语言环境及其数字符号
+    private static volatile LocaleSymbols localeSymbols;
+
+    private static final class LocaleSymbols {
+        private final Locale locale;
+        private final char zeroDigit;
+        private final char decimalSeparator;
+
+        private LocaleSymbols(Locale locale) {
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            this.locale = locale;
+            this.zeroDigit = symbols.getZeroDigit();
+            this.decimalSeparator = symbols.getDecimalSeparator();
+        }
+    }
+
+    private ValueFormatter() {
+    }
+
+    /**
+     * 获取10的n次幂
+     * @param n 指数，不小于0
+     * @return 10^n，与Math.pow(10, n)相同
+     */
+    static double pow10(int n) {
+        return n < POW10.length ? POW10[n] : Math.pow(10, n);
+    }
+
+    /**
+     * 按固定小数位数格式化，结果与String.format("%." + decimals + "f", value)相同
+     * @param value 数值
+     * @param decimals 小数位数
+     * @return 格式化后的字符串
+     */
+    public static String formatFixed(double value, int decimals) {
+        return appendFixed(new StringBuilder(24), value, decimals, false).toString();
+    }
+
+    /**
+     * 按固定小数位数格式化并追加到sb，结果与String.format("%." + decimals + "f", value)相同
+     * @param sb 目标
+     * @param value 数值
+     * @param decimals 小数位数
+     * @return sb
+     */
+    public static StringBuilder appendFixed(StringBuilder sb, double value, int decimals) {
+        return appendFixed(sb, value, decimals, false);
+    }
+
+    /**
+     * 按固定小数位数格式化并追加到sb
+     * @param sb 目标
+     * @param value 数值
+     * @param decimals 小数位数
+     * @param plusSign 非负数是否带"+"号，即String.format("%+.nf")
+     * @return sb
+     */
+    public static StringBuilder appendFixed(StringBuilder sb, double value, int decimals, boolean plusSign) {
+        if (decimals < 0) {
+            throw new IllegalArgumentException("小数位数不能为负数: " + decimals);
+        }
+        double magnitude = Math.abs(value);
+        if (decimals >= POW10.length || !(magnitude * POW10[decimals] < FAST_PATH_LIMIT)) {
+            // 非有限值和超出快速路径范围的数值交给Formatter处理
+            return sb.append(String.format(plusSign ? "%+." + decimals + "f" : "%." + decimals + "f", value));
+        }
+
+        long scaled = roundHalfUp(magnitude, decimals);
+        LocaleSymbols symbols = symbols();
+
+        if (Double.doubleToRawLongBits(value) < 0) {
+            sb.append('-');
+        } else if (plusSign) {
+            sb.append('+');
+        }
+
+        long factor = (long) POW10[decimals];
+        appendDigits(sb, scaled / factor, 1, symbols.zeroDigit);
+        if (decimals > 0) {
+            sb.append(symbols.decimalSeparator);
+            appendDigits(sb, scaled % factor, decimals, symbols.zeroDigit);
+        }
+        return sb;
+    }
+
+    /**
+     * 按Formatter的规则把|value|舍入到decimals位小数并放大为整数
+     * Formatter对数值的最短十进制表示做四舍五入（HALF_UP）。设k为放大后的整数部分，
+     * 中点m=(k+0.5)/10^n在快速路径范围内有效数字不超过15位，最短表示恰好为m当且仅当m舍入后就是该double，
+     * 因此只需比较value与m舍入后的double即可确定进位。
+     * 乘法的舍入误差只会在value远离中点时使k偏差一，此时比较结果不受影响。
+     */
+    private static long roundHalfUp(double magnitude, int decimals) {
+        double factor = POW10[decimals];
+        long floor = (long) (magnitude * factor);
+        double midpoint = (2 * floor + 1) / (2 * factor);
+        return magnitude >= midpoint ? floor + 1 : floor;
+    }
+
+    private static void appendDigits(StringBuilder sb, long value, int minDigits, char zeroDigit) {
+        int digits = 1;
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+            digits++;
+        }
+        for (int i = digits; i < minDigits; i++) {
+            sb.append(zeroDigit);
+        }
+        while (divisor > 0) {
+            sb.append((char) (zeroDigit + (value / divisor) % 10));
+            divisor /= 10;
+        }
+    }
+
+    private static LocaleSymbols symbols() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        LocaleSymbols cached = localeSymbols;
+        if (cached == null || !cached.locale.equals(locale)) {
+            cached = new LocaleSymbols(locale);
+            localeSymbols = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * 获取当前线程缓存的DecimalFormat
+     * @param pattern 格式化模式
+     * @return DecimalFormat，只能在当前线程使用
+     * @throws IllegalArgumentException 模式无效时
+     */
+    static DecimalFormat decimalFormat(String pattern) {
+        Map<String, DecimalFormat> formats = DECIMAL_FORMATS.get();
+        DecimalFormat format = formats.get(pattern);
+        if (format == null) {
+            format = new DecimalFormat(pattern);
+            formats.put(pattern, format);
+        }
+        return format;
+    }
+
+    /**
+     * 按DecimalFormat模式格式化并追加到sb，格式化器按线程缓存
+     * @param sb 目标
+     * @param value 数值
+     * @param pattern 格式化模式，如"#.##"或"0.00%"
+     * @return sb
+     * @throws IllegalArgumentException 模式无效时
+     */
+    public static StringBuilder appendPattern(StringBuilder sb, double value, String pattern) {
+        StringBuffer buffer = FORMAT_BUFFER.get();
+        buffer.setLength(0);
+        decimalFormat(pattern).format(value, buffer, FIELD_POSITION);
+        return sb.append(buffer);
+    }
+}
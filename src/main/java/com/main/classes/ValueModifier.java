@@ -1,16 +1,20 @@
 package com.main.classes;
 
-import java.text.DecimalFormat;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 
 /**
  * ValueModifier 类用于管理游戏中的数值属性，支持永久修改和临时修改
  */
-public class ValueModifier {
+public class ValueModifier implements StatValue {
     // 优先级常量
     public static final int PRIORITY_HIGHEST = 100;
     public static final int PRIORITY_HIGH = 200;
@@ -18,16 +22,56 @@ public class ValueModifier {
     public static final int PRIORITY_LOW = 800;
     public static final int PRIORITY_LOWEST = 1000;
 
+    // 修改器的统一计算顺序：先按优先级，再按创建时间
+    static final Comparator<TemporaryModifier> MODIFIER_ORDER =
+            Comparator.comparingInt(TemporaryModifier::getPriority)
+                    .thenComparingLong(TemporaryModifier::getCreationTime);
+
+    // 不过滤任何修改器的条件，使用该条件的值可以直接读取聚合结果
+    private static final TagFilter ALL_MODIFIERS = TagFilter.all();
+
+    private static final ModifierSubscription[] NO_SUBSCRIPTIONS = new ModifierSubscription[0];
+
+    // 新建实例使用的默认历史保留策略
+    private static volatile HistoryPolicy defaultHistoryPolicy = HistoryPolicy.unbounded();
+
     // 核心数据
     private final double initialBaseValue;
     private double currentBaseValue;
-    private final List<PermanentModification> modificationHistory = new ArrayList<>();
+    private ModificationHistory modificationHistory = new ModificationHistory(defaultHistoryPolicy);
+
+    // 按类型分组存储修改器，并维护增量聚合结果，使getFinalValue()无需重新遍历修改器
+    private final ModifierGroup modifiers = new ModifierGroup();
+
+    // 按标签和标签前缀索引修改器
+    private final TagIndex tagIndex = new TagIndex();
+
+    // 用于自动更新的ModifiedValue登记表：侵入式双向链表，登记和注销均为O(1)；
+    // 已被垃圾回收的ModifiedValue由引用队列通知，在下次登记或通知时摘除
+    private final ReferenceQueue<ModifiedValue> collectedValues = new ReferenceQueue<>();
+    private Registration registrations;
+    private int registrationCount = 0;
+
+    // 更新方式与修改代数：每次影响计算结果的修改都会使代数加一，ModifiedValue据此判断缓存是否过期
+    private UpdateMode updateMode = UpdateMode.EAGER;
+    private long generation = 0;
 
-    // 按类型分组存储修改器
-    private final Map<ModifierType, Map<String, TemporaryModifier>> modifiersByType = new EnumMap<>(ModifierType.class);
+    // 批量修改状态：批量修改期间只记录需要通知，提交时统一通知一次
+    private int batchDepth = 0;
+    private boolean pendingNotification = false;
+    private Mutator mutator;
+    // 最近一次生成的快照，没有变化时直接复用
+    private ValueSnapshot lastSnapshot;
 
-    // 用于自动更新的ModifiedValue集合
-    private final Set<WeakReference<ModifiedValue>> modifiedValues = new HashSet<>();
+    // 修改器变化的订阅，写时复制，回调期间可以安全地增删订阅
+    private ModifierSubscription[] subscriptions = NO_SUBSCRIPTIONS;
+    // 所有订阅关心的修改器类型的并集（按ordinal的位掩码），没有订阅关心的类型不记录事件
+    private int subscribedTypeMask = 0;
+    // 尚未提交的修改器变化事件
+    private List<ModifierChangeEvent> pendingEvents;
+
+    // 所属属性依赖图中的节点，不属于任何依赖图时为null
+    StatGraph.Node graphNode;
 
     // 精度控制属性
     private int calculationPrecision = -1;  // -1表示不限制精度
@@ -43,11 +87,6 @@ public class ValueModifier {
     public ValueModifier(double initialValue) {
         this.initialBaseValue = initialValue;
         this.currentBaseValue = initialValue;
-
-        // 初始化所有修改器类型的映射
-        for (ModifierType type : ModifierType.values()) {
-            modifiersByType.put(type, new HashMap<>());
-        }
     }
 
     /**
@@ -93,7 +132,7 @@ public class ValueModifier {
 
         try {
             // 验证格式是否有效
-            new DecimalFormat(pattern).format(1.0);
+            ValueFormatter.decimalFormat(pattern).format(1.0);
             this.formatPattern = pattern;
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("无效的格式模式: " + pattern, e);
@@ -106,17 +145,28 @@ public class ValueModifier {
      * @return 应用精度后的值
      */
     private double applyCalculationPrecision(double value) {
-        if (calculationPrecision < 0) {
+        return applyCalculationPrecision(value, calculationPrecision, roundingForCalculation);
+    }
+
+    /**
+     * 按指定的计算精度处理数值
+     * @param value 原始值
+     * @param precision 小数位数，-1表示不限制精度
+     * @param useRounding 是否四舍五入，否则直接截断
+     * @return 应用精度后的值
+     */
+    static double applyCalculationPrecision(double value, int precision, boolean useRounding) {
+        if (precision < 0) {
             return value;  // 不限制精度
         }
 
-        if (roundingForCalculation) {
+        if (useRounding) {
             // 四舍五入
-            double factor = Math.pow(10, calculationPrecision);
+            double factor = ValueFormatter.pow10(precision);
             return Math.round(value * factor) / factor;
         } else {
             // 直接截断（对正负数都适用）
-            double factor = Math.pow(10, calculationPrecision);
+            double factor = ValueFormatter.pow10(precision);
             return Math.signum(value) * Math.floor(Math.abs(value) * factor) / factor;
         }
     }
@@ -127,33 +177,32 @@ public class ValueModifier {
      * @return 格式化后的字符串
      */
     private String applyDisplayFormat(double value) {
+        return appendDisplayFormat(new StringBuilder(24), value).toString();
+    }
+
+    /**
+     * 应用显示精度并把格式化结果追加到sb
+     * 格式化器按线程缓存，固定小数位数的输出与String.format("%.nf")相同
+     * @param sb 目标
+     * @param value 原始值
+     * @return sb
+     */
+    private StringBuilder appendDisplayFormat(StringBuilder sb, double value) {
         // 先应用显示精度
-        double displayValue = value;
-        if (displayPrecision >= 0) {
-            if (roundingForDisplay) {
-                // 四舍五入
-                double factor = Math.pow(10, displayPrecision);
-                displayValue = Math.round(value * factor) / factor;
-            } else {
-                // 直接截断（对正负数都适用）
-                double factor = Math.pow(10, displayPrecision);
-                displayValue = Math.signum(value) * Math.floor(Math.abs(value) * factor) / factor;
-            }
-        }
+        double displayValue = applyCalculationPrecision(value, displayPrecision, roundingForDisplay);
 
         // 然后应用格式化
         if (formatPattern != null) {
             try {
-                DecimalFormat df = new DecimalFormat(formatPattern);
-                return df.format(displayValue);
+                return ValueFormatter.appendPattern(sb, displayValue, formatPattern);
             } catch (IllegalArgumentException e) {
                 // 格式无效，回退到默认格式
-                return Double.toString(displayValue);
+                return sb.append(displayValue);
             }
         } else if (displayPrecision >= 0) {
-            return String.format("%." + displayPrecision + "f", displayValue);
+            return ValueFormatter.appendFixed(sb, displayValue, displayPrecision);
         } else {
-            return Double.toString(displayValue);
+            return sb.append(displayValue);
         }
     }
 
@@ -161,10 +210,21 @@ public class ValueModifier {
      * 获取格式化的值
      * @return 格式化后的字符串
      */
+    @Override
     public String getFormattedValue() {
         return applyDisplayFormat(getFinalValue());
     }
 
+    /**
+     * 把格式化的值追加到sb，不创建中间字符串
+     * @param sb 目标
+     * @return sb
+     */
+    @Override
+    public StringBuilder appendFormattedValue(StringBuilder sb) {
+        return appendDisplayFormat(sb, getFinalValue());
+    }
+
     // ==================== 基础值管理 ====================
 
     /**
@@ -192,7 +252,7 @@ public class ValueModifier {
     public double modifyBaseValue(double delta, String reason) {
         double oldValue = currentBaseValue;
         currentBaseValue += delta;
-        modificationHistory.add(new PermanentModification(oldValue, currentBaseValue, reason));
+        modificationHistory.record(oldValue, currentBaseValue, reason);
         notifyModifiedValues();
         return currentBaseValue;
     }
@@ -206,19 +266,74 @@ public class ValueModifier {
     public double setBaseValue(double newValue, String reason) {
         double oldValue = currentBaseValue;
         currentBaseValue = newValue;
-        modificationHistory.add(new PermanentModification(oldValue, currentBaseValue, reason));
+        modificationHistory.record(oldValue, currentBaseValue, reason);
         notifyModifiedValues();
         return currentBaseValue;
     }
 
+    /**
+     * 重设基础值，不记录修改历史
+     * 用于由规则推导出的基础值（如按等级成长），避免每次升级都产生历史记录
+     * @param newValue 新的基础值
+     * @return 修改后的基础值
+     */
+    public double resetBaseValue(double newValue) {
+        if (Double.compare(currentBaseValue, newValue) != 0) {
+            currentBaseValue = newValue;
+            notifyModifiedValues();
+        }
+        return currentBaseValue;
+    }
+
     // ==================== 永久修改历史管理 ====================
 
+    /**
+     * 设置新建ValueModifier默认使用的历史保留策略，不影响已有实例
+     * @param policy 保留策略
+     */
+    public static void setDefaultHistoryPolicy(HistoryPolicy policy) {
+        defaultHistoryPolicy = Objects.requireNonNull(policy, "历史保留策略不能为空");
+    }
+
+    /**
+     * 获取新建ValueModifier默认使用的历史保留策略
+     * @return 保留策略
+     */
+    public static HistoryPolicy getDefaultHistoryPolicy() {
+        return defaultHistoryPolicy;
+    }
+
+    /**
+     * 设置历史保留策略，已有记录按新策略重新保留
+     * @param policy 保留策略
+     */
+    public void setHistoryPolicy(HistoryPolicy policy) {
+        Objects.requireNonNull(policy, "历史保留策略不能为空");
+        modificationHistory = modificationHistory.withPolicy(policy);
+    }
+
+    /**
+     * 获取历史保留策略
+     * @return 保留策略
+     */
+    public HistoryPolicy getHistoryPolicy() {
+        return modificationHistory.getPolicy();
+    }
+
     /**
      * 获取修改历史
-     * @return 修改历史列表
+     * @return 修改历史列表的只读视图，记录对象按需生成
      */
     public List<PermanentModification> getModificationHistory() {
-        return Collections.unmodifiableList(modificationHistory);
+        return modificationHistory.view();
+    }
+
+    /**
+     * 获取保留的历史记录条数
+     * @return 记录条数
+     */
+    public int getHistorySize() {
+        return modificationHistory.size();
     }
 
     /**
@@ -230,28 +345,23 @@ public class ValueModifier {
             return currentBaseValue;
         }
 
-        PermanentModification lastMod = modificationHistory.remove(modificationHistory.size() - 1);
-        currentBaseValue = lastMod.getOldValue();
+        currentBaseValue = modificationHistory.oldValue(modificationHistory.size() - 1);
+        modificationHistory.removeLast();
         notifyModifiedValues();
         return currentBaseValue;
     }
 
     /**
-     * 撤销到特定历史点
+     * 撤销到特定历史点，索引针对当前保留的记录；撤销到检查点会回到被合并修改之前的基础值
      * @param index 历史索引
      * @return 撤销后的基础值
      * @throws IndexOutOfBoundsException 如果索引无效
      */
     public double undoToHistoryPoint(int index) {
-        if (index < 0 || index >= modificationHistory.size()) {
-            throw new IndexOutOfBoundsException("Invalid history index: " + index);
-        }
-
-        PermanentModification targetMod = modificationHistory.get(index);
-        currentBaseValue = targetMod.getOldValue();
+        currentBaseValue = modificationHistory.oldValue(index);
 
         // 移除该索引及之后的所有历史
-        modificationHistory.subList(index, modificationHistory.size()).clear();
+        modificationHistory.truncate(index);
 
         notifyModifiedValues();
         return currentBaseValue;
@@ -392,7 +502,15 @@ public class ValueModifier {
      */
     private TemporaryModifier addModifier(String id, ModifierType type, double value, String tag, int priority) {
         TemporaryModifier modifier = new TemporaryModifier(id, type, value, tag, priority);
-        modifiersByType.get(type).put(id, modifier);
+        modifier.owner = this;
+        TemporaryModifier replaced = modifiers.put(modifier);
+        if (replaced != null) {
+            tagIndex.remove(replaced);
+            cancelExpiration(replaced);
+            recordEvent(ModifierChangeEvent.Kind.REMOVED, replaced, replaced.getPriority());
+        }
+        tagIndex.add(modifier);
+        recordEvent(ModifierChangeEvent.Kind.ADDED, modifier, priority);
         notifyModifiedValues();
         return modifier;
     }
@@ -404,15 +522,72 @@ public class ValueModifier {
      * @return 是否成功设置
      */
     public boolean setModifierPriority(String id, int newPriority) {
-        for (Map<String, TemporaryModifier> modifiers : modifiersByType.values()) {
-            if (modifiers.containsKey(id)) {
-                TemporaryModifier modifier = modifiers.get(id);
-                modifier.setPriority(newPriority);
-                notifyModifiedValues();
-                return true;
-            }
+        TemporaryModifier modifier = modifiers.find(id);
+        if (modifier == null) {
+            return false;
+        }
+        modifier.setPriority(newPriority);
+        notifyModifiedValues();
+        return true;
+    }
+
+    /**
+     * 修改器优先级改变后更新它在各个排序中的位置
+     * @param modifier 修改器
+     */
+    private void onModifierPriorityChanged(TemporaryModifier modifier, int previousPriority) {
+        if (modifiers.contains(modifier)) {
+            modifiers.priorityChanged(modifier);
+            tagIndex.priorityChanged(modifier);
+            recordEvent(ModifierChangeEvent.Kind.PRIORITY_CHANGED, modifier, previousPriority);
+        }
+    }
+
+    /**
+     * 从存储和标签索引中移除修改器
+     * @param modifier 修改器
+     */
+    private void detachModifier(TemporaryModifier modifier) {
+        modifiers.remove(modifier);
+        tagIndex.remove(modifier);
+        cancelExpiration(modifier);
+        recordEvent(ModifierChangeEvent.Kind.REMOVED, modifier, modifier.getPriority());
+    }
+
+    private static void cancelExpiration(TemporaryModifier modifier) {
+        if (modifier.expiration != null) {
+            modifier.expiration.cancel();
+            modifier.expiration = null;
         }
-        return false;
+    }
+
+    /**
+     * 安排修改器在指定持续时间后由计时器自动移除
+     * @param id 修改器ID
+     * @param timer 计时器
+     * @param duration 持续时间，按回合计时的计时器为回合数，按真实时间计时的计时器为毫秒数
+     * @return 被安排到期的修改器，找不到时返回null
+     */
+    public TemporaryModifier expireAfter(String id, ModifierTimer timer, long duration) {
+        TemporaryModifier modifier = modifiers.find(id);
+        if (modifier != null) {
+            timer.schedule(this, modifier, duration);
+        }
+        return modifier;
+    }
+
+    /**
+     * 移除计时器判定为到期的修改器
+     * @param modifier 修改器
+     * @return 是否移除
+     */
+    boolean removeExpiredModifier(TemporaryModifier modifier) {
+        if (!modifiers.contains(modifier)) {
+            return false;
+        }
+        detachModifier(modifier);
+        notifyModifiedValues();
+        return true;
     }
 
     /**
@@ -421,18 +596,23 @@ public class ValueModifier {
      * @return 是否成功移除
      */
     public boolean removeModifier(String id) {
-        boolean removed = false;
-        for (Map<String, TemporaryModifier> modifiers : modifiersByType.values()) {
-            if (modifiers.remove(id) != null) {
-                removed = true;
-                break;
-            }
+        TemporaryModifier modifier = modifiers.find(id);
+        if (modifier == null) {
+            return false;
         }
 
-        if (removed) {
-            notifyModifiedValues();
-        }
-        return removed;
+        detachModifier(modifier);
+        notifyModifiedValues();
+        return true;
+    }
+
+    /**
+     * 是否存在指定ID的修改器
+     * @param id 修改器ID
+     * @return 是否存在
+     */
+    boolean hasModifier(String id) {
+        return modifiers.find(id) != null;
     }
 
     /**
@@ -441,24 +621,16 @@ public class ValueModifier {
      * @return 移除的修改器数量
      */
     public int removeModifiersByTag(String tag) {
-        int count = 0;
-        for (Map<String, TemporaryModifier> modifiers : modifiersByType.values()) {
-            List<String> toRemove = modifiers.values().stream()
-                    .filter(mod -> mod.getTag().equals(tag))
-                    .map(TemporaryModifier::getId)
-                    .collect(Collectors.toList());
-
-            for (String id : toRemove) {
-                modifiers.remove(id);
-                count++;
-            }
+        ModifierGroup group = tagIndex.get(tag);
+        if (group == null) {
+            return 0;
         }
 
-        if (count > 0) {
-            notifyModifiedValues();
+        List<TemporaryModifier> toRemove = new ArrayList<>(group.size());
+        for (ModifierType type : ModifierType.values()) {
+            toRemove.addAll(group.modifiers(type).values());
         }
-
-        return count;
+        return removeModifiers(toRemove);
     }
 
     /**
@@ -467,37 +639,39 @@ public class ValueModifier {
      * @return 移除的修改器数量
      */
     public int removeModifiersByTagPrefix(String tagPrefix) {
-        int count = 0;
-        for (Map<String, TemporaryModifier> modifiers : modifiersByType.values()) {
-            List<String> toRemove = modifiers.values().stream()
-                    .filter(mod -> mod.getTag().startsWith(tagPrefix))
-                    .map(TemporaryModifier::getId)
-                    .collect(Collectors.toList());
+        return removeModifiers(tagIndex.collectByPrefix(tagPrefix));
+    }
 
-            for (String id : toRemove) {
-                modifiers.remove(id);
-                count++;
-            }
+    /**
+     * 移除一批修改器，有修改器被移除时通知一次
+     * @param toRemove 要移除的修改器
+     * @return 移除的修改器数量
+     */
+    private int removeModifiers(List<TemporaryModifier> toRemove) {
+        for (TemporaryModifier modifier : toRemove) {
+            detachModifier(modifier);
         }
 
-        if (count > 0) {
+        if (!toRemove.isEmpty()) {
             notifyModifiedValues();
         }
 
-        return count;
+        return toRemove.size();
     }
 
     /**
      * 清除所有临时修改器
      */
     public void clearAllModifiers() {
-        boolean hadModifiers = modifiersByType.values().stream()
-                .anyMatch(map -> !map.isEmpty());
-
-        if (hadModifiers) {
-            for (Map<String, TemporaryModifier> modifiers : modifiersByType.values()) {
-                modifiers.clear();
+        if (!modifiers.isEmpty()) {
+            for (ModifierType type : ModifierType.values()) {
+                for (TemporaryModifier modifier : modifiers.modifiers(type).values()) {
+                    cancelExpiration(modifier);
+                    recordEvent(ModifierChangeEvent.Kind.REMOVED, modifier, modifier.getPriority());
+                }
             }
+            modifiers.clear();
+            tagIndex.clear();
             notifyModifiedValues();
         }
     }
@@ -507,23 +681,21 @@ public class ValueModifier {
      * @return 所有修改器的集合
      */
     public Collection<TemporaryModifier> getAllModifiers() {
-        List<TemporaryModifier> allModifiers = new ArrayList<>();
-        for (Map<String, TemporaryModifier> modifiers : modifiersByType.values()) {
-            allModifiers.addAll(modifiers.values());
+        List<TemporaryModifier> allModifiers = new ArrayList<>(modifiers.size());
+        for (ModifierType type : ModifierType.values()) {
+            allModifiers.addAll(modifiers.modifiers(type).values());
         }
         return allModifiers;
     }
 
     /**
-     * 获取特定类型的所有修改器，按优先级排序
+     * 获取特定类型的所有修改器，按优先级排序（优先级相同时按创建时间）
+     * 修改器在加入、移除和调整优先级时已保持有序，这里不需要排序
      * @param type 修改器类型
-     * @return 排序后的修改器列表
+     * @return 排序后的修改器列表的只读视图，随修改器变化
      */
-    private List<TemporaryModifier> getSortedModifiers(ModifierType type) {
-        return modifiersByType.get(type).values().stream()
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority)
-                        .thenComparingLong(TemporaryModifier::getCreationTime))
-                .collect(Collectors.toList());
+    public List<TemporaryModifier> getSortedModifiers(ModifierType type) {
+        return modifiers.aggregate(type).sortedView();
     }
 
     // ==================== 值计算功能 ====================
@@ -532,211 +704,151 @@ public class ValueModifier {
      * 获取最终值
      * @return 应用所有修改器后的最终值
      */
+    @Override
     public double getFinalValue() {
-        double rawValue = calculateValue(mod -> true);
-        return applyCalculationPrecision(rawValue);
-    }
-
-    /**
-     * 获取不含特定标签的值
-     * @param excludeTag 要排除的标签
-     * @return 排除特定标签后的值
-     */
-    public double getValueExcludingTag(String excludeTag) {
-        double rawValue = calculateValue(mod -> !mod.getTag().equals(excludeTag));
+        double rawValue = calculateAggregatedValue(modifiers, true);
         return applyCalculationPrecision(rawValue);
     }
 
     /**
-     * 获取只含特定标签的值
-     * @param includeTag 要包含的标签
-     * @return 只包含特定标签的值
+     * 获取某一类型修改器的增量聚合结果
+     * @param type 修改器类型
+     * @return 聚合结果
      */
-    public double getValueForTag(String includeTag) {
-        double rawValue = calculateValueWithBaseAndTag(includeTag);
-        return applyCalculationPrecision(rawValue);
+    ModifierAggregate aggregate(ModifierType type) {
+        return modifiers.aggregate(type);
     }
 
     /**
-     * 计算只包含特定标签的值
-     * @param includeTag 要包含的标签
+     * 使用增量聚合结果计算一组修改器作用后的值
+     * 与calculateValue的计算步骤和求和顺序完全一致，但不需要遍历修改器
+     * @param group 修改器组，为null时视为没有修改器
+     * @param resolveLimitConflicts 最小值限制大于最大值限制时是否按优先级解决冲突
      * @return 计算结果
      */
-    private double calculateValueWithBaseAndTag(String includeTag) {
-        // 基础值乘法修改器（只包含特定标签）
-        double baseMultSum = modifiersByType.get(ModifierType.BASE_MULTIPLICATIVE).values().stream()
-                .filter(mod -> mod.getTag().equals(includeTag))
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .mapToDouble(TemporaryModifier::getValue)
-                .sum();
-
-        // 确保基础值乘法总和不低于-1（避免负值或零值）
-        baseMultSum = Math.max(baseMultSum, -0.99);
+    private double calculateAggregatedValue(ModifierGroup group, boolean resolveLimitConflicts) {
+        if (group == null) {
+            // 没有修改器时各项之和均为0，(基础值 + 0) * 1 即为结果
+            return currentBaseValue + 0.0;
+        }
 
-        // 应用基础值乘法
+        // 1. 应用基础值乘法修改器
+        double baseMultSum = Math.max(group.aggregate(ModifierType.BASE_MULTIPLICATIVE).getSum(), -0.99);
         double modifiedBase = currentBaseValue * (1 + baseMultSum);
 
-        // 加法修改器（只包含特定标签）
-        double additiveSum = modifiersByType.get(ModifierType.ADDITIVE).values().stream()
-                .filter(mod -> mod.getTag().equals(includeTag))
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .mapToDouble(TemporaryModifier::getValue)
-                .sum();
-
-        // 乘法修改器（只包含特定标签）
-        double multSum = modifiersByType.get(ModifierType.MULTIPLICATIVE).values().stream()
-                .filter(mod -> mod.getTag().equals(includeTag))
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .mapToDouble(TemporaryModifier::getValue)
-                .sum();
+        // 2. 应用加法修改器
+        double additiveSum = group.aggregate(ModifierType.ADDITIVE).getSum();
 
-        // 确保乘法总和不低于-1（避免负值或零值）
-        multSum = Math.max(multSum, -0.99);
+        // 3. 应用普通乘法修改器
+        double multSum = Math.max(group.aggregate(ModifierType.MULTIPLICATIVE).getSum(), -0.99);
 
-        // 计算结果
         double result = (modifiedBase + additiveSum) * (1 + multSum);
 
-        // 应用限制器（只包含特定标签）
-        result = applyLimitsWithTag(result, includeTag);
-
-        return result;
+        // 4-6. 应用最小值/最大值限制并处理冲突
+        ModifierAggregate minLimits = group.aggregate(ModifierType.MIN_LIMIT);
+        ModifierAggregate maxLimits = group.aggregate(ModifierType.MAX_LIMIT);
+        if (!resolveLimitConflicts) {
+            if (minLimits.getCount() > 0 && result < minLimits.getMaxValue()) {
+                result = minLimits.getMaxValue();
+            }
+            if (maxLimits.getCount() > 0 && result > maxLimits.getMinValue()) {
+                result = maxLimits.getMinValue();
+            }
+            return result;
+        }
+        return applyLimits(result,
+                minLimits.getCount(), minLimits.getMaxValue(), minLimits.getHeadPriority(),
+                maxLimits.getCount(), maxLimits.getMinValue(), maxLimits.getHeadPriority());
     }
 
     /**
-     * 应用特定标签的限制器
+     * 应用最小值/最大值限制，并在限制冲突时使用优先级更高的限制器
      * @param value 要限制的值
-     * @param includeTag 要包含的标签
+     * @param minCount 最小值限制器数量
+     * @param minLimit 所有最小值限制中的最大值
+     * @param minHeadPriority 优先级最高的最小值限制器的优先级
+     * @param maxCount 最大值限制器数量
+     * @param maxLimit 所有最大值限制中的最小值
+     * @param maxHeadPriority 优先级最高的最大值限制器的优先级
      * @return 限制后的值
      */
-    private double applyLimitsWithTag(double value, String includeTag) {
-        // 最小值限制（只包含特定标签）
-        Optional<Double> minLimit = modifiersByType.get(ModifierType.MIN_LIMIT).values().stream()
-                .filter(mod -> mod.getTag().equals(includeTag))
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .map(TemporaryModifier::getValue)
-                .max(Double::compare);
-
-        if (minLimit.isPresent() && value < minLimit.get()) {
-            value = minLimit.get();
+    private static double applyLimits(double value,
+                                      int minCount, double minLimit, int minHeadPriority,
+                                      int maxCount, double maxLimit, int maxHeadPriority) {
+        double result = value;
+        if (minCount > 0 && result < minLimit) {
+            result = minLimit;
+        }
+        if (maxCount > 0 && result > maxLimit) {
+            result = maxLimit;
+        }
+        if (minCount > 0 && maxCount > 0 && minLimit > maxLimit) {
+            // 冲突解决策略：使用优先级更高的限制器
+            result = minHeadPriority <= maxHeadPriority ? minLimit : maxLimit;
         }
+        return result;
+    }
 
-        // 最大值限制（只包含特定标签）
-        Optional<Double> maxLimit = modifiersByType.get(ModifierType.MAX_LIMIT).values().stream()
-                .filter(mod -> mod.getTag().equals(includeTag))
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .map(TemporaryModifier::getValue)
-                .min(Double::compare);
+    /**
+     * 获取不含特定标签的值
+     * @param excludeTag 要排除的标签
+     * @return 排除特定标签后的值
+     */
+    public double getValueExcludingTag(String excludeTag) {
+        double rawValue = calculateValue(TagFilter.excluding(excludeTag));
+        return applyCalculationPrecision(rawValue);
+    }
 
-        if (maxLimit.isPresent() && value > maxLimit.get()) {
-            value = maxLimit.get();
-        }
+    /**
+     * 获取只含特定标签的值
+     * @param includeTag 要包含的标签
+     * @return 只包含特定标签的值
+     */
+    public double getValueForTag(String includeTag) {
+        double rawValue = calculateAggregatedValue(tagIndex.get(includeTag), false);
+        return applyCalculationPrecision(rawValue);
+    }
 
-        return value;
+    /**
+     * 根据按标签编译的过滤条件计算值
+     * @param filter 标签过滤条件
+     * @return 计算后的值
+     */
+    public double calculateValue(TagFilter filter) {
+        return calculateValue((Predicate<TemporaryModifier>) filter);
     }
 
     /**
      * 根据自定义条件计算值
+     * 直接按顺序遍历各类型已排好序的修改器，不需要排序；传入TagFilter时只需比较标签ID
      * @param filter 修改器过滤条件
      * @return 计算后的值
      */
     public double calculateValue(Predicate<TemporaryModifier> filter) {
-        // 1. 应用基础值乘法修改器
-        double baseMultSum = modifiersByType.get(ModifierType.BASE_MULTIPLICATIVE).values().stream()
-                .filter(filter)
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .mapToDouble(TemporaryModifier::getValue)
-                .sum();
-
-        // 确保基础值乘法总和不低于-1（避免负值或零值）
-        baseMultSum = Math.max(baseMultSum, -0.99);
+        if (filter == ALL_MODIFIERS) {
+            return calculateAggregatedValue(modifiers, true);
+        }
 
-        // 应用基础值乘法
+        // 1. 应用基础值乘法修改器，确保总和不低于-1（避免负值或零值）
+        double baseMultSum = Math.max(modifiers.aggregate(ModifierType.BASE_MULTIPLICATIVE).getFilteredSum(filter), -0.99);
         double modifiedBase = currentBaseValue * (1 + baseMultSum);
 
         // 2. 应用加法修改器
-        double additiveSum = modifiersByType.get(ModifierType.ADDITIVE).values().stream()
-                .filter(filter)
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .mapToDouble(TemporaryModifier::getValue)
-                .sum();
-
-        // 3. 应用普通乘法修改器
-        double multSum = modifiersByType.get(ModifierType.MULTIPLICATIVE).values().stream()
-                .filter(filter)
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .mapToDouble(TemporaryModifier::getValue)
-                .sum();
+        double additiveSum = modifiers.aggregate(ModifierType.ADDITIVE).getFilteredSum(filter);
 
-        // 确保乘法总和不低于-1（避免负值或零值）
-        multSum = Math.max(multSum, -0.99);
+        // 3. 应用普通乘法修改器，确保总和不低于-1
+        double multSum = Math.max(modifiers.aggregate(ModifierType.MULTIPLICATIVE).getFilteredSum(filter), -0.99);
 
-        // 计算中间结果
         double result = (modifiedBase + additiveSum) * (1 + multSum);
 
-        // 4. 应用最小值限制
-        List<TemporaryModifier> minLimits = modifiersByType.get(ModifierType.MIN_LIMIT).values().stream()
-                .filter(filter)
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .collect(Collectors.toList());
-
-        if (!minLimits.isEmpty()) {
-            // 取所有最小值限制中的最大值（最严格的下限）
-            double minLimit = minLimits.stream()
-                    .mapToDouble(TemporaryModifier::getValue)
-                    .max()
-                    .orElse(Double.NEGATIVE_INFINITY);
-
-            if (result < minLimit) {
-                result = minLimit;
-            }
-        }
-
-        // 5. 应用最大值限制
-        List<TemporaryModifier> maxLimits = modifiersByType.get(ModifierType.MAX_LIMIT).values().stream()
-                .filter(filter)
-                .sorted(Comparator.comparingInt(TemporaryModifier::getPriority))
-                .collect(Collectors.toList());
-
-        if (!maxLimits.isEmpty()) {
-            // 取所有最大值限制中的最小值（最严格的上限）
-            double maxLimit = maxLimits.stream()
-                    .mapToDouble(TemporaryModifier::getValue)
-                    .min()
-                    .orElse(Double.POSITIVE_INFINITY);
-
-            if (result > maxLimit) {
-                result = maxLimit;
-            }
-        }
-
-        // 6. 处理限制器冲突（如果最小值大于最大值）
-        if (!minLimits.isEmpty() && !maxLimits.isEmpty()) {
-            double minLimit = minLimits.stream()
-                    .mapToDouble(TemporaryModifier::getValue)
-                    .max()
-                    .orElse(Double.NEGATIVE_INFINITY);
-
-            double maxLimit = maxLimits.stream()
-                    .mapToDouble(TemporaryModifier::getValue)
-                    .min()
-                    .orElse(Double.POSITIVE_INFINITY);
-
-            if (minLimit > maxLimit) {
-                // 冲突解决策略：使用优先级更高的限制器
-                TemporaryModifier highestPriorityMin = minLimits.get(0);
-                TemporaryModifier highestPriorityMax = maxLimits.get(0);
-
-                if (highestPriorityMin.getPriority() <= highestPriorityMax.getPriority()) {
-                    // 最小值限制优先级更高
-                    result = minLimit;
-                } else {
-                    // 最大值限制优先级更高
-                    result = maxLimit;
-                }
-            }
-        }
-
-        return result;
+        // 4. 最小值限制：取所有最小值限制中的最大值（最严格的下限）
+        // 5. 最大值限制：取所有最大值限制中的最小值（最严格的上限）
+        // 6. 应用限制并处理限制器冲突（如果最小值大于最大值），排在最前的限制器优先级最高
+        ModifierAggregate minLimits = modifiers.aggregate(ModifierType.MIN_LIMIT);
+        ModifierAggregate maxLimits = modifiers.aggregate(ModifierType.MAX_LIMIT);
+        return applyLimits(result,
+                minLimits.getFilteredCount(filter), minLimits.getFilteredMaxValue(filter), minLimits.getFilteredHeadPriority(filter),
+                maxLimits.getFilteredCount(filter), maxLimits.getFilteredMinValue(filter), maxLimits.getFilteredHeadPriority(filter));
     }
 
     /**
@@ -744,8 +856,8 @@ public class ValueModifier {
      * @return ModifiedValue对象
      */
     public ModifiedValue createModifiedValue() {
-        ModifiedValue value = new ModifiedValue(mod -> true);
-        modifiedValues.add(new WeakReference<>(value));
+        ModifiedValue value = new ModifiedValue(ALL_MODIFIERS, null);
+        registerModifiedValue(value);
         return value;
     }
 
@@ -755,8 +867,8 @@ public class ValueModifier {
      * @return ModifiedValue对象
      */
     public ModifiedValue createModifiedValueForTag(String includeTag) {
-        ModifiedValue value = new ModifiedValue(mod -> mod.getTag().equals(includeTag));
-        modifiedValues.add(new WeakReference<>(value));
+        ModifiedValue value = new ModifiedValue(TagFilter.including(includeTag), includeTag);
+        registerModifiedValue(value);
         return value;
     }
 
@@ -766,74 +878,532 @@ public class ValueModifier {
      * @return ModifiedValue对象
      */
     public ModifiedValue createModifiedValueExcludingTag(String excludeTag) {
-        ModifiedValue value = new ModifiedValue(mod -> !mod.getTag().equals(excludeTag));
-        modifiedValues.add(new WeakReference<>(value));
+        ModifiedValue value = new ModifiedValue(TagFilter.excluding(excludeTag), null);
+        registerModifiedValue(value);
         return value;
     }
 
     /**
-     * 通知所有ModifiedValue对象更新
+     * 创建一个使用自定义条件的ModifiedValue对象
+     * 传入TagFilter时更新只需比较标签ID，其他条件每次更新都需要对所有修改器逐个判断
+     * @param filter 修改器过滤条件
+     * @return ModifiedValue对象
      */
-    private void notifyModifiedValues() {
-        // 移除已被垃圾回收的引用
-        modifiedValues.removeIf(ref -> ref.get() == null);
-
-        // 通知所有ModifiedValue更新
-        for (WeakReference<ModifiedValue> ref : modifiedValues) {
-            ModifiedValue value = ref.get();
-            if (value != null) {
-                value.update();
-            }
-        }
+    public ModifiedValue createModifiedValue(Predicate<TemporaryModifier> filter) {
+        ModifiedValue value = new ModifiedValue(filter, null);
+        registerModifiedValue(value);
+        return value;
     }
 
-    // ==================== 内部类 ====================
-
     /**
-     * 永久修改记录类
+     * 登记需要自动更新的ModifiedValue
+     * @param value ModifiedValue对象
      */
-    public static class PermanentModification {
-        private final double oldValue;
-        private final double newValue;
-        private final String reason;
-        private final LocalDateTime timestamp;
+    private void registerModifiedValue(ModifiedValue value) {
+        drainCollectedValues();
+        Registration registration = new Registration(value, collectedValues);
+        registration.next = registrations;
+        if (registrations != null) {
+            registrations.prev = registration;
+        }
+        registrations = registration;
+        registration.linked = true;
+        registrationCount++;
+        value.registration = registration;
+    }
 
-        public PermanentModification(double oldValue, double newValue, String reason) {
-            this.oldValue = oldValue;
-            this.newValue = newValue;
-            this.reason = reason;
-            this.timestamp = LocalDateTime.now();
+    /**
+     * 注销ModifiedValue的自动更新
+     * @param registration 登记项
+     */
+    void unregisterModifiedValue(Registration registration) {
+        if (!registration.linked) {
+            return;
         }
-
-        public double getOldValue() {
-            return oldValue;
+        registration.linked = false;
+        if (registration.prev != null) {
+            registration.prev.next = registration.next;
+        } else {
+            registrations = registration.next;
         }
-
-        public double getNewValue() {
-            return newValue;
+        if (registration.next != null) {
+            registration.next.prev = registration.prev;
         }
+        registration.prev = null;
+        registration.next = null;
+        registrationCount--;
+    }
 
-        public String getReason() {
-            return reason;
+    /**
+     * 摘除已被垃圾回收的ModifiedValue的登记项
+     */
+    private void drainCollectedValues() {
+        Reference<? extends ModifiedValue> collected;
+        while ((collected = collectedValues.poll()) != null) {
+            unregisterModifiedValue((Registration) collected);
         }
+    }
 
-        public LocalDateTime getTimestamp() {
-            return timestamp;
+    /**
+     * 获取仍在接收自动更新的ModifiedValue数量
+     * 不可达但尚未被垃圾回收器处理的ModifiedValue也会计入
+     * @return 订阅数量
+     */
+    public int getLiveSubscriberCount() {
+        drainCollectedValues();
+        return registrationCount;
+    }
+
+    /**
+     * 通知所有ModifiedValue对象更新
+     * 立即更新模式下重新计算所有ModifiedValue；延迟更新模式下只推进修改代数，由读取方按需重新计算。
+     * 批量修改期间只记录需要通知，在最外层批量修改提交时统一通知一次。
+     */
+    private void notifyModifiedValues() {
+        generation++;
+        if (batchDepth > 0) {
+            pendingNotification = true;
+            return;
         }
+        propagateChanges();
+    }
 
-        public double getDelta() {
-            return newValue - oldValue;
+    /**
+     * 将修改传播给所有ModifiedValue对象
+     */
+    private void propagateChanges() {
+        onChangesCommitted();
+        deliverModifierEvents();
+        if (updateMode == UpdateMode.LAZY) {
+            return;
         }
 
-        @Override
-        public String toString() {
-            return String.format("修改: %s, 从 %.2f 到 %.2f (变化: %+.2f), 时间: %s",
-                    reason, oldValue, newValue, getDelta(), timestamp);
+        // 移除已被垃圾回收的引用，通知代价只与仍存活的ModifiedValue数量有关
+        drainCollectedValues();
+
+        // 通知所有ModifiedValue更新
+        for (Registration registration = registrations; registration != null; registration = registration.next) {
+            ModifiedValue value = registration.get();
+            if (value != null) {
+                value.update();
+            }
         }
     }
 
     /**
-     * 临时修改器类型枚举
+     * 设置ModifiedValue的更新方式
+     * @param mode EAGER表示每次修改后立即更新（适合UI绑定），LAZY表示读取时才重新计算过期的值
+     */
+    public void setUpdateMode(UpdateMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("更新方式不能为空");
+        }
+        UpdateMode oldMode = this.updateMode;
+        this.updateMode = mode;
+        if (oldMode == UpdateMode.LAZY && mode == UpdateMode.EAGER) {
+            // 切换回立即更新时刷新所有可能已过期的值
+            notifyModifiedValues();
+        }
+    }
+
+    /**
+     * 获取ModifiedValue的更新方式
+     * @return 更新方式
+     */
+    public UpdateMode getUpdateMode() {
+        return updateMode;
+    }
+
+    /**
+     * 获取当前的修改代数，每次影响计算结果的修改都会使其增加
+     * @return 修改代数
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * 读取ModifiedValue的值，缓存过期时重新计算
+     * @param value ModifiedValue对象
+     * @return 当前值
+     */
+    double readModifiedValue(ModifiedValue value) {
+        if (value.computedGeneration != generation) {
+            value.update();
+        }
+        return value.cachedValue;
+    }
+
+    /**
+     * 分析ModifiedValue的组成部分，结果按修改代数缓存，没有修改时重复调用返回同一个对象
+     * @param value ModifiedValue对象
+     * @return 值分析结果
+     */
+    ValueBreakdown createValueBreakdown(ModifiedValue value) {
+        ValueBreakdown breakdown = value.breakdown;
+        if (breakdown == null || value.breakdownGeneration != generation) {
+            breakdown = new ValueBreakdown(value.filter, value.includeTag, readModifiedValue(value));
+            value.breakdown = breakdown;
+            value.breakdownGeneration = generation;
+        }
+        return breakdown;
+    }
+
+    /**
+     * 从增量聚合结果读取一组修改器中某一类型的总和
+     * @param filter 修改器过滤条件
+     * @param includeTag 只包含该标签时直接读取标签组，否则为null
+     * @param type 修改器类型
+     * @return 总和，按优先级顺序求和，与最终值的计算一致
+     */
+    private double aggregatedSum(Predicate<TemporaryModifier> filter, String includeTag, ModifierType type) {
+        if (filter == ALL_MODIFIERS) {
+            return modifiers.aggregate(type).getSum();
+        }
+        if (includeTag != null) {
+            ModifierGroup group = tagIndex.get(includeTag);
+            return group == null ? 0 : group.aggregate(type).getSum();
+        }
+        return modifiers.aggregate(type).getFilteredSum(filter);
+    }
+
+    // ==================== 批量修改 ====================
+
+    /**
+     * 在一次批量修改中执行多个修改操作，所有重新计算和通知都推迟到操作结束后统一进行一次
+     * @param action 修改操作
+     */
+    public void batch(Consumer<Mutator> action) {
+        try (Transaction ignored = beginBatch()) {
+            if (mutator == null) {
+                mutator = new BatchMutator();
+            }
+            action.accept(mutator);
+        }
+    }
+
+    /**
+     * 开始一次批量修改，配合try-with-resources使用，关闭时统一通知
+     * 批量修改可以嵌套，只有最外层的批量修改关闭时才会通知
+     * @return 批量修改事务
+     */
+    public Transaction beginBatch() {
+        return new Transaction(this);
+    }
+
+    /**
+     * 开始一次跨越多个ValueModifier的批量修改，关闭时按传入的相反顺序各通知一次
+     * 其中的ConcurrentValueModifier按创建顺序加锁，与传入顺序无关，多个线程批量修改有重叠的属性时不会死锁
+     * @param modifiers 参与批量修改的ValueModifier
+     * @return 批量修改事务
+     */
+    public static Transaction beginBatch(ValueModifier... modifiers) {
+        return new Transaction(modifiers.clone());
+    }
+
+    /**
+     * 批量修改期间读取到的值始终是最新的，只有通知被推迟
+     * @return 是否处于批量修改中
+     */
+    public boolean isInBatch() {
+        return batchDepth > 0;
+    }
+
+    /**
+     * 修改提交后（批量修改中为最外层提交时）调用，向依赖图中的下游属性传播
+     */
+    void onChangesCommitted() {
+        if (graphNode != null) {
+            graphNode.changed();
+        }
+    }
+
+    void enterBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * 多个ValueModifier一起开始批量修改时的加锁顺序，不需要加锁的为0
+     */
+    long lockOrder() {
+        return 0;
+    }
+
+    void exitBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("没有进行中的批量修改");
+        }
+        batchDepth--;
+        if (batchDepth == 0 && pendingNotification) {
+            pendingNotification = false;
+            propagateChanges();
+        }
+    }
+
+    // ==================== 内部类 ====================
+
+    /**
+     * 永久修改记录类
+     */
+    public static class PermanentModification {
+        private final double oldValue;
+        private final double newValue;
+        private final String reason;
+        private final long epochNanos;
+        private final int mergedCount;
+
+        public PermanentModification(double oldValue, double newValue, String reason) {
+            this(oldValue, newValue, reason, ModificationHistory.currentEpochNanos(), 1);
+        }
+
+        PermanentModification(double oldValue, double newValue, String reason, long epochNanos, int mergedCount) {
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+            this.reason = reason;
+            this.epochNanos = epochNanos;
+            this.mergedCount = mergedCount;
+        }
+
+        public double getOldValue() {
+            return oldValue;
+        }
+
+        public double getNewValue() {
+            return newValue;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public LocalDateTime getTimestamp() {
+            return LocalDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), ZoneId.systemDefault());
+        }
+
+        /**
+         * 获取记录时间，自1970-01-01T00:00Z起的纳秒数
+         * @return 纳秒时间戳
+         */
+        public long getEpochNanos() {
+            return epochNanos;
+        }
+
+        /**
+         * 获取该记录代表的修改次数，检查点记录大于1
+         * @return 修改次数
+         */
+        public int getMergedCount() {
+            return mergedCount;
+        }
+
+        public boolean isCheckpoint() {
+            return mergedCount > 1;
+        }
+
+        public double getDelta() {
+            return newValue - oldValue;
+        }
+
+        @Override
+        public String toString() {
+            String text = String.format("修改: %s, 从 %.2f 到 %.2f (变化: %+.2f), 时间: %s",
+                    reason, oldValue, newValue, getDelta(), getTimestamp());
+            return isCheckpoint() ? text + String.format(" (合并%d条)", mergedCount) : text;
+        }
+    }
+
+    /**
+     * 批量修改事务，关闭时提交所有推迟的通知
+     */
+    public static final class Transaction implements AutoCloseable {
+        private static final Comparator<ValueModifier> LOCK_ORDER = Comparator.comparingLong(ValueModifier::lockOrder);
+
+        private final ValueModifier[] modifiers;
+        private boolean closed = false;
+
+        private Transaction(ValueModifier... modifiers) {
+            this.modifiers = modifiers;
+            ValueModifier[] enterOrder = modifiers;
+            if (modifiers.length > 1 && needsLockOrdering(modifiers)) {
+                enterOrder = modifiers.clone();
+                Arrays.sort(enterOrder, LOCK_ORDER);
+            }
+            for (ValueModifier modifier : enterOrder) {
+                modifier.enterBatch();
+            }
+        }
+
+        private static boolean needsLockOrdering(ValueModifier[] modifiers) {
+            for (ValueModifier modifier : modifiers) {
+                if (modifier.lockOrder() != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 提交批量修改，重复关闭不会产生效果
+         * 某个ValueModifier提交时抛出异常也会继续结束其余的批量修改（释放锁），之后抛出第一个异常
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            RuntimeException failure = null;
+            for (int i = modifiers.length - 1; i >= 0; i--) {
+                try {
+                    modifiers[i].exitBatch();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * 批量修改中可执行的修改操作
+     */
+    public interface Mutator {
+        double modifyBaseValue(double delta, String reason);
+
+        double setBaseValue(double newValue, String reason);
+
+        TemporaryModifier addAdditiveModifier(String id, double value, String tag, int priority);
+
+        TemporaryModifier addMultiplicativeModifier(String id, double value, String tag, int priority);
+
+        TemporaryModifier addBaseMultiplicativeModifier(String id, double value, String tag, int priority);
+
+        TemporaryModifier addMinLimitModifier(String id, double minValue, String tag, int priority);
+
+        TemporaryModifier addMaxLimitModifier(String id, double maxValue, String tag, int priority);
+
+        boolean setModifierPriority(String id, int newPriority);
+
+        boolean removeModifier(String id);
+
+        int removeModifiersByTag(String tag);
+
+        int removeModifiersByTagPrefix(String tagPrefix);
+
+        void clearAllModifiers();
+
+        default TemporaryModifier addAdditiveModifier(String id, double value, String tag) {
+            return addAdditiveModifier(id, value, tag, PRIORITY_NORMAL);
+        }
+
+        default TemporaryModifier addMultiplicativeModifier(String id, double value, String tag) {
+            return addMultiplicativeModifier(id, value, tag, PRIORITY_NORMAL);
+        }
+
+        default TemporaryModifier addBaseMultiplicativeModifier(String id, double value, String tag) {
+            return addBaseMultiplicativeModifier(id, value, tag, PRIORITY_NORMAL);
+        }
+
+        default TemporaryModifier addMinLimitModifier(String id, double minValue, String tag) {
+            return addMinLimitModifier(id, minValue, tag, PRIORITY_NORMAL);
+        }
+
+        default TemporaryModifier addMaxLimitModifier(String id, double maxValue, String tag) {
+            return addMaxLimitModifier(id, maxValue, tag, PRIORITY_NORMAL);
+        }
+    }
+
+    /**
+     * 将批量修改操作转发到所属ValueModifier的Mutator实现
+     */
+    private final class BatchMutator implements Mutator {
+        @Override
+        public double modifyBaseValue(double delta, String reason) {
+            return ValueModifier.this.modifyBaseValue(delta, reason);
+        }
+
+        @Override
+        public double setBaseValue(double newValue, String reason) {
+            return ValueModifier.this.setBaseValue(newValue, reason);
+        }
+
+        @Override
+        public TemporaryModifier addAdditiveModifier(String id, double value, String tag, int priority) {
+            return ValueModifier.this.addAdditiveModifier(id, value, tag, priority);
+        }
+
+        @Override
+        public TemporaryModifier addMultiplicativeModifier(String id, double value, String tag, int priority) {
+            return ValueModifier.this.addMultiplicativeModifier(id, value, tag, priority);
+        }
+
+        @Override
+        public TemporaryModifier addBaseMultiplicativeModifier(String id, double value, String tag, int priority) {
+            return ValueModifier.this.addBaseMultiplicativeModifier(id, value, tag, priority);
+        }
+
+        @Override
+        public TemporaryModifier addMinLimitModifier(String id, double minValue, String tag, int priority) {
+            return ValueModifier.this.addMinLimitModifier(id, minValue, tag, priority);
+        }
+
+        @Override
+        public TemporaryModifier addMaxLimitModifier(String id, double maxValue, String tag, int priority) {
+            return ValueModifier.this.addMaxLimitModifier(id, maxValue, tag, priority);
+        }
+
+        @Override
+        public boolean setModifierPriority(String id, int newPriority) {
+            return ValueModifier.this.setModifierPriority(id, newPriority);
+        }
+
+        @Override
+        public boolean removeModifier(String id) {
+            return ValueModifier.this.removeModifier(id);
+        }
+
+        @Override
+        public int removeModifiersByTag(String tag) {
+            return ValueModifier.this.removeModifiersByTag(tag);
+        }
+
+        @Override
+        public int removeModifiersByTagPrefix(String tagPrefix) {
+            return ValueModifier.this.removeModifiersByTagPrefix(tagPrefix);
+        }
+
+        @Override
+        public void clearAllModifiers() {
+            ValueModifier.this.clearAllModifiers();
+        }
+    }
+
+    /**
+     * ModifiedValue更新方式枚举
+     */
+    public enum UpdateMode {
+        EAGER("立即更新"),
+        LAZY("延迟更新");
+
+        private final String description;
+
+        UpdateMode(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 临时修改器类型枚举
      */
     public enum ModifierType {
         ADDITIVE("加法"),
@@ -861,14 +1431,25 @@ public class ValueModifier {
         private final ModifierType type;
         private final double value;
         private final String tag;
+        // 标签在TagRegistry中的ID，用于快速过滤
+        private final int tagId;
         private int priority;
         private final long creationTime;
+        // 持有该修改器的ValueModifier，用于在优先级变化时使聚合结果失效
+        private ValueModifier owner;
+        // 按"."拆分后的标签段，首次使用时计算
+        private String[] tagSegments;
+        // 计时器中的到期安排，没有安排到期时为null
+        ModifierTimer.Entry expiration;
+        // 当前状态的快照，优先级改变时失效
+        private ModifierSnapshot snapshot;
 
         public TemporaryModifier(String id, ModifierType type, double value, String tag, int priority) {
             this.id = id;
             this.type = type;
             this.value = value;
             this.tag = tag;
+            this.tagId = TagRegistry.idOf(tag);
             this.priority = priority;
             this.creationTime = System.nanoTime();
         }
@@ -889,18 +1470,50 @@ public class ValueModifier {
             return tag;
         }
 
+        public int getTagId() {
+            return tagId;
+        }
+
         public int getPriority() {
             return priority;
         }
 
         public void setPriority(int priority) {
+            int previousPriority = this.priority;
             this.priority = priority;
+            this.snapshot = null;
+            if (owner != null) {
+                owner.onModifierPriorityChanged(this, previousPriority);
+            }
         }
 
         public long getCreationTime() {
             return creationTime;
         }
 
+        ModifierSnapshot snapshot() {
+            if (snapshot == null) {
+                snapshot = new ModifierSnapshot(this);
+            }
+            return snapshot;
+        }
+
+        /**
+         * 是否已安排到期
+         * @return 是否会被计时器自动移除
+         */
+        public boolean isExpiring() {
+            return expiration != null;
+        }
+
+        /**
+         * 获取距离到期的剩余刻数（回合数或时间刻数）
+         * @return 剩余刻数，没有安排到期时返回-1
+         */
+        public long getRemainingTicks() {
+            return expiration == null ? -1 : expiration.remainingTicks();
+        }
+
         /**
          * 检查标签是否以指定前缀开头
          * @param prefix 前缀
@@ -916,7 +1529,10 @@ public class ValueModifier {
          * @return 层级值，如果层级不存在则返回null
          */
         public String getTagLevel(int level) {
-            String[] parts = tag.split("\\.");
+            if (tagSegments == null) {
+                tagSegments = tag.split("\\.");
+            }
+            String[] parts = tagSegments;
             if (level >= 0 && level < parts.length) {
                 return parts[level];
             }
@@ -925,35 +1541,236 @@ public class ValueModifier {
 
         @Override
         public String toString() {
-            String valueStr;
+            StringBuilder sb = new StringBuilder(64).append(id).append(": ");
             switch (type) {
                 case MULTIPLICATIVE:
                 case BASE_MULTIPLICATIVE:
-                    valueStr = String.format("%+.1f%%", value * 100);
+                    ValueFormatter.appendFixed(sb, value * 100, 1, true).append('%');
                     break;
                 case MIN_LIMIT:
-                    valueStr = String.format("最小值: %.2f", value);
+                    ValueFormatter.appendFixed(sb.append("最小值: "), value, 2);
                     break;
                 case MAX_LIMIT:
-                    valueStr = String.format("最大值: %.2f", value);
+                    ValueFormatter.appendFixed(sb.append("最大值: "), value, 2);
                     break;
                 default:
-                    valueStr = String.format("%+.2f", value);
+                    ValueFormatter.appendFixed(sb, value, 2, true);
+            }
+            return sb.append(" (").append(type.getDescription()).append(", ").append(tag)
+                    .append(", 优先级: ").append(priority).append(')').toString();
+        }
+    }
+
+    /**
+     * 修改器变化的订阅，关闭后不再回调，重复关闭不会产生效果
+     */
+    public final class ModifierSubscription implements AutoCloseable {
+        private final int typeMask;
+        private final String tagPrefix;
+        private final ModifierChangeListener listener;
+        private boolean active = true;
+
+        private ModifierSubscription(int typeMask, String tagPrefix, ModifierChangeListener listener) {
+            this.typeMask = typeMask;
+            this.tagPrefix = tagPrefix;
+            this.listener = listener;
+        }
+
+        private boolean accepts(ModifierChangeEvent event) {
+            return (typeMask & (1 << event.getType().ordinal())) != 0
+                    && (tagPrefix == null || event.getTag().startsWith(tagPrefix));
+        }
+
+        public String getTagPrefix() {
+            return tagPrefix;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        @Override
+        public void close() {
+            if (active) {
+                active = false;
+                unsubscribe(this);
             }
-            return String.format("%s: %s (%s, %s, 优先级: %d)", id, valueStr, type.getDescription(), tag, priority);
+        }
+    }
+
+    /**
+     * 临时修改器的不可变快照
+     */
+    public static final class ModifierSnapshot {
+        private final String id;
+        private final ModifierType type;
+        private final double value;
+        private final String tag;
+        private final int priority;
+        private final long creationTime;
+
+        private ModifierSnapshot(TemporaryModifier modifier) {
+            this.id = modifier.getId();
+            this.type = modifier.getType();
+            this.value = modifier.getValue();
+            this.tag = modifier.getTag();
+            this.priority = modifier.getPriority();
+            this.creationTime = modifier.getCreationTime();
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public ModifierType getType() {
+            return type;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public long getCreationTime() {
+            return creationTime;
+        }
+
+        @Override
+        public String toString() {
+            return "修改器快照[" + id + ", " + type.getDescription() + ", " + value + ", " + tag + ", 优先级: " + priority + "]";
+        }
+    }
+
+    /**
+     * ValueModifier某一时刻的不可变快照：基础值、最终值、修改器列表和精度设置
+     * 所有字段在构造时确定，可以跨线程发布，也可以在不接触原对象的情况下转换为DTO。
+     * 修改器按类型顺序排列，同类型内按优先级和创建时间排序。
+     */
+    public static final class ValueSnapshot {
+        private final double initialBaseValue;
+        private final double baseValue;
+        private final double finalValue;
+        private final long generation;
+        private final List<ModifierSnapshot> modifiers;
+        private final int calculationPrecision;
+        private final boolean roundingForCalculation;
+        private final int displayPrecision;
+        private final boolean roundingForDisplay;
+        private final String formatPattern;
+        // 生成快照时修改器组的版本，用于复用修改器列表
+        private final int modifierVersion;
+
+        private ValueSnapshot(ValueModifier source, List<ModifierSnapshot> modifiers, int modifierVersion) {
+            this.initialBaseValue = source.initialBaseValue;
+            this.baseValue = source.currentBaseValue;
+            this.finalValue = source.getFinalValue();
+            this.generation = source.generation;
+            this.modifiers = modifiers;
+            this.calculationPrecision = source.calculationPrecision;
+            this.roundingForCalculation = source.roundingForCalculation;
+            this.displayPrecision = source.displayPrecision;
+            this.roundingForDisplay = source.roundingForDisplay;
+            this.formatPattern = source.formatPattern;
+            this.modifierVersion = modifierVersion;
+        }
+
+        public double getInitialBaseValue() {
+            return initialBaseValue;
+        }
+
+        public double getBaseValue() {
+            return baseValue;
+        }
+
+        public double getFinalValue() {
+            return finalValue;
+        }
+
+        /**
+         * 获取生成快照时的修改代数
+         * @return 修改代数
+         */
+        public long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * 获取修改器列表
+         * @return 不可修改的列表
+         */
+        public List<ModifierSnapshot> getModifiers() {
+            return modifiers;
+        }
+
+        public int getCalculationPrecision() {
+            return calculationPrecision;
+        }
+
+        public boolean isRoundingForCalculation() {
+            return roundingForCalculation;
+        }
+
+        public int getDisplayPrecision() {
+            return displayPrecision;
+        }
+
+        public boolean isRoundingForDisplay() {
+            return roundingForDisplay;
+        }
+
+        public String getFormatPattern() {
+            return formatPattern;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(64).append("ValueModifier快照[基础值:");
+            ValueFormatter.appendFixed(sb, baseValue, 2).append(", 最终值:");
+            ValueFormatter.appendFixed(sb, finalValue, 2).append(", 修改器:").append(modifiers.size());
+            return sb.append(", 代数:").append(generation).append(']').toString();
+        }
+    }
+
+    /**
+     * ModifiedValue的登记项，弱引用ModifiedValue，同时是登记表链表的节点
+     */
+    static final class Registration extends WeakReference<ModifiedValue> {
+        private Registration prev;
+        private Registration next;
+        private boolean linked;
+
+        private Registration(ModifiedValue value, ReferenceQueue<ModifiedValue> queue) {
+            super(value, queue);
         }
     }
 
     /**
      * 修改后的值类，实现Number接口以便于与Java数值系统集成
+     * 不再需要时可以调用close()停止自动更新，关闭后读取时按需重新计算
      */
-    public class ModifiedValue extends Number implements Comparable<Number> {
+    public class ModifiedValue extends Number implements Comparable<Number>, AutoCloseable {
         private static final long serialVersionUID = 1L;
         private final Predicate<TemporaryModifier> filter;
+        // 自动更新的登记项
+        private Registration registration;
+        // 只包含该标签的修改器时直接使用标签组的聚合结果，否则为null
+        private final String includeTag;
         private double cachedValue;
+        private long computedGeneration;
+        // 值分析结果及其对应的修改代数，首次分析时计算
+        private ValueBreakdown breakdown;
+        private long breakdownGeneration;
 
-        private ModifiedValue(Predicate<TemporaryModifier> filter) {
+        private ModifiedValue(Predicate<TemporaryModifier> filter, String includeTag) {
             this.filter = filter;
+            this.includeTag = includeTag;
             update();
         }
 
@@ -961,8 +1778,16 @@ public class ValueModifier {
          * 更新缓存的值
          */
         void update() {
-            double rawValue = calculateValue(filter);
+            double rawValue;
+            if (filter == ALL_MODIFIERS) {
+                rawValue = calculateAggregatedValue(modifiers, true);
+            } else if (includeTag != null) {
+                rawValue = calculateAggregatedValue(tagIndex.get(includeTag), true);
+            } else {
+                rawValue = calculateValue(filter);
+            }
             this.cachedValue = applyCalculationPrecision(rawValue);
+            this.computedGeneration = generation;
         }
 
         /**
@@ -970,7 +1795,25 @@ public class ValueModifier {
          * @return 当前值
          */
         public double getValue() {
-            return cachedValue;
+            return readModifiedValue(this);
+        }
+
+        /**
+         * 停止自动更新，之后读取值时按需重新计算，重复关闭不会产生效果
+         */
+        @Override
+        public void close() {
+            if (registration != null) {
+                unregisterModifiedValue(registration);
+            }
+        }
+
+        /**
+         * 是否已停止自动更新
+         * @return 是否已关闭
+         */
+        public boolean isClosed() {
+            return registration == null || !registration.linked;
         }
 
         /**
@@ -978,7 +1821,16 @@ public class ValueModifier {
          * @return 格式化后的字符串
          */
         public String getFormattedValue() {
-            return applyDisplayFormat(cachedValue);
+            return applyDisplayFormat(getValue());
+        }
+
+        /**
+         * 把格式化的值追加到sb，不创建中间字符串
+         * @param sb 目标
+         * @return sb
+         */
+        public StringBuilder appendFormattedValue(StringBuilder sb) {
+            return appendDisplayFormat(sb, getValue());
         }
 
         /**
@@ -986,7 +1838,7 @@ public class ValueModifier {
          * @return 基础值
          */
         public double getBaseValue() {
-            return currentBaseValue;
+            return getCurrentBaseValue();
         }
 
         /**
@@ -994,7 +1846,7 @@ public class ValueModifier {
          * @return 相对于基础值的变化百分比
          */
         public double getModificationPercentage() {
-            return (cachedValue / currentBaseValue) - 1.0;
+            return (getValue() / getCurrentBaseValue()) - 1.0;
         }
 
         /**
@@ -1013,62 +1865,95 @@ public class ValueModifier {
          * @return 指定类型的修改器列表
          */
         public List<TemporaryModifier> getModifiersByType(ModifierType type) {
-            return getContributingModifiers().stream()
-                    .filter(mod -> mod.getType() == type)
+            return getSortedModifiers(type).stream()
+                    .filter(filter)
                     .collect(Collectors.toList());
         }
 
         /**
          * 分析值的组成部分
+         * 结果在值没有变化前一直缓存，反复调用（如提示框、战斗日志）不会重新计算
          * @return 值分析结果
          */
         public ValueBreakdown getValueBreakdown() {
-            return new ValueBreakdown(this);
+            return createValueBreakdown(this);
+        }
+
+        /**
+         * 获取基础值乘法修改器带来的变化
+         * @return 基础值乘法效果
+         */
+        public double getBaseMultiplierEffect() {
+            return getValueBreakdown().getBaseMultiplierEffect();
+        }
+
+        /**
+         * 获取加法修改器带来的变化
+         * @return 加法效果
+         */
+        public double getAdditiveEffect() {
+            return getValueBreakdown().getAdditiveEffect();
+        }
+
+        /**
+         * 获取乘法修改器带来的变化
+         * @return 乘法效果
+         */
+        public double getMultiplicativeEffect() {
+            return getValueBreakdown().getMultiplicativeEffect();
+        }
+
+        /**
+         * 获取最小值/最大值限制带来的变化
+         * @return 限制效果
+         */
+        public double getLimitEffect() {
+            return getValueBreakdown().getLimitEffect();
         }
 
         // Number接口实现
         @Override
         public int intValue() {
-            return (int) cachedValue;
+            return (int) getValue();
         }
 
         @Override
         public long longValue() {
-            return (long) cachedValue;
+            return (long) getValue();
         }
 
         @Override
         public float floatValue() {
-            return (float) cachedValue;
+            return (float) getValue();
         }
 
         @Override
         public double doubleValue() {
-            return cachedValue;
+            return getValue();
         }
 
         // Comparable接口实现
         @Override
         public int compareTo(Number other) {
-            return Double.compare(cachedValue, other.doubleValue());
+            return Double.compare(getValue(), other.doubleValue());
         }
 
         @Override
         public boolean equals(Object obj) {
             if (obj instanceof Number) {
-                return Double.compare(cachedValue, ((Number) obj).doubleValue()) == 0;
+                return Double.compare(getValue(), ((Number) obj).doubleValue()) == 0;
             }
             return false;
         }
 
         @Override
         public int hashCode() {
-            return Double.hashCode(cachedValue);
+            return Double.hashCode(getValue());
         }
 
         @Override
         public String toString() {
-            return applyDisplayFormat(cachedValue);
+            return applyDisplayFormat(getValue());
         }
     }
 
@@ -1092,6 +1977,157 @@ public class ValueModifier {
         return formatPattern;
     }
 
+    // ==================== 修改器变化订阅 ====================
+
+    /**
+     * 订阅所有修改器变化
+     * @see #subscribe(Set, String, ModifierChangeListener)
+     */
+    public ModifierSubscription subscribe(ModifierChangeListener listener) {
+        return subscribe(EnumSet.allOf(ModifierType.class), null, listener);
+    }
+
+    /**
+     * 订阅某一类型修改器的变化
+     * @see #subscribe(Set, String, ModifierChangeListener)
+     */
+    public ModifierSubscription subscribe(ModifierType type, ModifierChangeListener listener) {
+        return subscribe(EnumSet.of(type), null, listener);
+    }
+
+    /**
+     * 订阅标签以指定前缀开头的修改器的变化，匹配规则与removeModifiersByTagPrefix相同
+     * @see #subscribe(Set, String, ModifierChangeListener)
+     */
+    public ModifierSubscription subscribeTagPrefix(String tagPrefix, ModifierChangeListener listener) {
+        return subscribe(EnumSet.allOf(ModifierType.class), tagPrefix, listener);
+    }
+
+    /**
+     * 订阅修改器的添加、移除和优先级改变
+     * 每次提交修改（批量修改中为最外层提交）后，订阅者只收到一次回调，包含该次提交中所有符合条件的事件；
+     * 没有符合条件的事件时不会回调。没有任何订阅关心的修改器类型不会产生事件，不增加修改开销。
+     * @param types 关心的修改器类型
+     * @param tagPrefix 标签前缀，为null时不按标签过滤
+     * @param listener 订阅者
+     * @return 订阅，关闭后不再回调
+     */
+    public ModifierSubscription subscribe(Set<ModifierType> types, String tagPrefix, ModifierChangeListener listener) {
+        Objects.requireNonNull(listener, "订阅者不能为空");
+        if (types.isEmpty()) {
+            throw new IllegalArgumentException("至少需要订阅一种修改器类型");
+        }
+        int typeMask = 0;
+        for (ModifierType type : types) {
+            typeMask |= 1 << type.ordinal();
+        }
+        ModifierSubscription subscription = new ModifierSubscription(typeMask, tagPrefix, listener);
+        ModifierSubscription[] current = subscriptions;
+        ModifierSubscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+        subscribedTypeMask |= typeMask;
+        return subscription;
+    }
+
+    /**
+     * 取消订阅
+     * @param subscription 订阅
+     */
+    void unsubscribe(ModifierSubscription subscription) {
+        ModifierSubscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscription) {
+                ModifierSubscription[] updated = new ModifierSubscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated;
+                int mask = 0;
+                for (ModifierSubscription remaining : updated) {
+                    mask |= remaining.typeMask;
+                }
+                subscribedTypeMask = mask;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 记录一次修改器变化，没有订阅关心该类型时直接跳过
+     */
+    private void recordEvent(ModifierChangeEvent.Kind kind, TemporaryModifier modifier, int previousPriority) {
+        if ((subscribedTypeMask & (1 << modifier.getType().ordinal())) == 0) {
+            return;
+        }
+        if (pendingEvents == null) {
+            pendingEvents = new ArrayList<>();
+        }
+        pendingEvents.add(new ModifierChangeEvent(kind, modifier.snapshot(), previousPriority));
+    }
+
+    /**
+     * 把已提交的事件按订阅条件分发，回调中产生的新修改会在其自身提交时分发
+     */
+    private void deliverModifierEvents() {
+        List<ModifierChangeEvent> events = pendingEvents;
+        if (events == null) {
+            return;
+        }
+        pendingEvents = null;
+        for (ModifierSubscription subscription : subscriptions) {
+            if (!subscription.active) {
+                continue;
+            }
+            List<ModifierChangeEvent> matched = null;
+            for (ModifierChangeEvent event : events) {
+                if (subscription.accepts(event)) {
+                    if (matched == null) {
+                        matched = new ArrayList<>();
+                    }
+                    matched.add(event);
+                }
+            }
+            if (matched != null) {
+                subscription.listener.onModifierChanges(this, Collections.unmodifiableList(matched));
+            }
+        }
+    }
+
+    // ==================== 快照 ====================
+
+    /**
+     * 获取当前状态的不可变快照，可以安全地发布给其他线程
+     * 自上次快照以来没有变化时返回同一个对象；修改器集合没有变化时复用修改器列表，
+     * 没有变化的修改器在不同快照之间共享同一个ModifierSnapshot。
+     * @return 快照
+     */
+    public ValueSnapshot snapshot() {
+        ValueSnapshot last = lastSnapshot;
+        int modifierVersion = modifiers.version();
+        if (last != null && last.generation == generation && last.modifierVersion == modifierVersion
+                && last.displayPrecision == displayPrecision && last.roundingForDisplay == roundingForDisplay
+                && Objects.equals(last.formatPattern, formatPattern)) {
+            return last;
+        }
+        List<ModifierSnapshot> modifierSnapshots = last != null && last.modifierVersion == modifierVersion
+                ? last.modifiers
+                : snapshotModifiers();
+        ValueSnapshot snapshot = new ValueSnapshot(this, modifierSnapshots, modifierVersion);
+        lastSnapshot = snapshot;
+        return snapshot;
+    }
+
+    private List<ModifierSnapshot> snapshotModifiers() {
+        ModifierSnapshot[] result = new ModifierSnapshot[modifiers.size()];
+        int i = 0;
+        for (ModifierType type : ModifierType.values()) {
+            for (TemporaryModifier modifier : modifiers.aggregate(type).sortedView()) {
+                result[i++] = modifier.snapshot();
+            }
+        }
+        return List.of(result);
+    }
+
     /**
      * 值分析结果类，用于详细分析值的组成部分
      */
@@ -1103,27 +2139,27 @@ public class ValueModifier {
         private final double limitEffect;
         private final double finalValue;
 
-        private ValueBreakdown(ModifiedValue value) {
+        /**
+         * 从增量聚合结果计算各部分效果，不遍历修改器
+         * @param filter 修改器过滤条件
+         * @param includeTag 只包含该标签时为标签，否则为null
+         * @param finalValue 该组修改器作用后的最终值
+         */
+        private ValueBreakdown(Predicate<TemporaryModifier> filter, String includeTag, double finalValue) {
             // 基础值
             this.baseValue = currentBaseValue;
 
             // 基础值乘法效果
-            double baseMultSum = value.getModifiersByType(ModifierType.BASE_MULTIPLICATIVE).stream()
-                    .mapToDouble(TemporaryModifier::getValue)
-                    .sum();
+            double baseMultSum = aggregatedSum(filter, includeTag, ModifierType.BASE_MULTIPLICATIVE);
             // 确保基础值乘法总和不低于-1（避免负值或零值）
             baseMultSum = Math.max(baseMultSum, -0.99);
             this.baseMultiplierEffect = currentBaseValue * baseMultSum;
 
             // 加法效果
-            this.additiveEffect = value.getModifiersByType(ModifierType.ADDITIVE).stream()
-                    .mapToDouble(TemporaryModifier::getValue)
-                    .sum();
+            this.additiveEffect = aggregatedSum(filter, includeTag, ModifierType.ADDITIVE);
 
             // 乘法效果
-            double multSum = value.getModifiersByType(ModifierType.MULTIPLICATIVE).stream()
-                    .mapToDouble(TemporaryModifier::getValue)
-                    .sum();
+            double multSum = aggregatedSum(filter, includeTag, ModifierType.MULTIPLICATIVE);
             // 确保乘法总和不低于-1（避免负值或零值）
             multSum = Math.max(multSum, -0.99);
             double afterAdditive = currentBaseValue * (1 + baseMultSum) + additiveEffect;
@@ -1133,7 +2169,7 @@ public class ValueModifier {
             double unlimitedValue = afterAdditive * (1 + multSum);
 
             // 最终值
-            this.finalValue = value.getValue();
+            this.finalValue = finalValue;
 
             // 限制效果
             this.limitEffect = finalValue - unlimitedValue;
@@ -1163,33 +2199,40 @@ public class ValueModifier {
             return finalValue;
         }
 
-
-
-
-        @Override
-        public String toString() {
-            StringBuilder sb = new StringBuilder();
+        /**
+         * 把值分析追加到sb，内容与toString()相同
+         * @param sb 目标
+         * @return sb
+         */
+        public StringBuilder appendTo(StringBuilder sb) {
             sb.append("值分析:\n");
-            sb.append(String.format("基础值: %.2f\n", baseValue));
-
-            if (baseMultiplierEffect != 0) {
-                sb.append(String.format("基础值乘法效果: %+.2f\n", baseMultiplierEffect));
-            }
-
-            if (additiveEffect != 0) {
-                sb.append(String.format("加法效果: %+.2f\n", additiveEffect));
-            }
-
-            if (multiplicativeEffect != 0) {
-                sb.append(String.format("乘法效果: %+.2f\n", multiplicativeEffect));
-            }
+            appendEffects(sb, "");
+            sb.append("最终值: ");
+            return ValueFormatter.appendFixed(sb, finalValue, 2);
+        }
 
-            if (limitEffect != 0) {
-                sb.append(String.format("限制效果: %+.2f\n", limitEffect));
+        /**
+         * 逐行追加基础值和各项非零效果
+         */
+        void appendEffects(StringBuilder sb, String indent) {
+            sb.append(indent).append("基础值: ");
+            ValueFormatter.appendFixed(sb, baseValue, 2).append('\n');
+            appendEffect(sb, indent, "基础值乘法效果: ", baseMultiplierEffect);
+            appendEffect(sb, indent, "加法效果: ", additiveEffect);
+            appendEffect(sb, indent, "乘法效果: ", multiplicativeEffect);
+            appendEffect(sb, indent, "限制效果: ", limitEffect);
+        }
+
+        private static void appendEffect(StringBuilder sb, String indent, String label, double effect) {
+            if (effect != 0) {
+                sb.append(indent).append(label);
+                ValueFormatter.appendFixed(sb, effect, 2, true).append('\n');
             }
+        }
 
-            sb.append(String.format("最终值: %.2f", finalValue));
-            return sb.toString();
+        @Override
+        public String toString() {
+            return appendTo(new StringBuilder(96)).toString();
         }
     }
 
@@ -1198,27 +2241,29 @@ public class ValueModifier {
         StringBuilder sb = new StringBuilder();
 
         // 基础值信息
-        sb.append(String.format("ValueModifier[初始值:%.2f, 当前基础值:%.2f, 最终值:%.2f]\n",
-                initialBaseValue, currentBaseValue, getFinalValue()));
+        sb.append("ValueModifier[初始值:");
+        ValueFormatter.appendFixed(sb, initialBaseValue, 2).append(", 当前基础值:");
+        ValueFormatter.appendFixed(sb, currentBaseValue, 2).append(", 最终值:");
+        ValueFormatter.appendFixed(sb, getFinalValue(), 2).append("]\n");
 
         // 精度设置
         sb.append("精度设置: ");
         if (calculationPrecision >= 0) {
-            sb.append(String.format("计算精度:%d位(%s) ",
-                    calculationPrecision, roundingForCalculation ? "四舍五入" : "截断"));
+            sb.append("计算精度:").append(calculationPrecision).append("位(")
+                    .append(roundingForCalculation ? "四舍五入" : "截断").append(") ");
         } else {
             sb.append("无计算精度限制 ");
         }
 
         if (displayPrecision >= 0) {
-            sb.append(String.format("显示精度:%d位(%s) ",
-                    displayPrecision, roundingForDisplay ? "四舍五入" : "截断"));
+            sb.append("显示精度:").append(displayPrecision).append("位(")
+                    .append(roundingForDisplay ? "四舍五入" : "截断").append(") ");
         } else {
             sb.append("无显示精度限制 ");
         }
 
         if (formatPattern != null) {
-            sb.append(String.format("格式化模式:\"%s\" ", formatPattern));
+            sb.append("格式化模式:\"").append(formatPattern).append("\" ");
         }
         sb.append("\n");
 
@@ -1234,38 +2279,23 @@ public class ValueModifier {
             for (ModifierType type : ModifierType.values()) {
                 long count = modifierCounts.getOrDefault(type, 0L);
                 if (count > 0) {
-                    sb.append(String.format("  %s: %d个\n", type.getDescription(), count));
+                    sb.append("  ").append(type.getDescription()).append(": ").append(count).append("个\n");
                 }
             }
         }
 
         // 历史修改记录统计
-        sb.append(String.format("永久修改历史: %d条记录\n", modificationHistory.size()));
+        sb.append("永久修改历史: ").append(modificationHistory.size()).append("条记录\n");
 
         // 详细值分析
         if (!getAllModifiers().isEmpty()) {
-            ModifiedValue mv = createModifiedValue();
-            ValueBreakdown breakdown = mv.getValueBreakdown();
+            // 直接从聚合结果分析，不需要登记新的ModifiedValue
+            ValueBreakdown breakdown = new ValueBreakdown(ALL_MODIFIERS, null, getFinalValue());
             sb.append("值分析:\n");
-            sb.append(String.format("  基础值: %.2f\n", breakdown.getBaseValue()));
-
-            if (breakdown.getBaseMultiplierEffect() != 0) {
-                sb.append(String.format("  基础值乘法效果: %+.2f\n", breakdown.getBaseMultiplierEffect()));
-            }
-
-            if (breakdown.getAdditiveEffect() != 0) {
-                sb.append(String.format("  加法效果: %+.2f\n", breakdown.getAdditiveEffect()));
-            }
-
-            if (breakdown.getMultiplicativeEffect() != 0) {
-                sb.append(String.format("  乘法效果: %+.2f\n", breakdown.getMultiplicativeEffect()));
-            }
-
-            if (breakdown.getLimitEffect() != 0) {
-                sb.append(String.format("  限制效果: %+.2f\n", breakdown.getLimitEffect()));
-            }
-
-            sb.append(String.format("  最终值: %.2f [%s]\n", breakdown.getFinalValue(), getFormattedValue()));
+            breakdown.appendEffects(sb, "  ");
+            sb.append("  最终值: ");
+            ValueFormatter.appendFixed(sb, breakdown.getFinalValue(), 2).append(" [");
+            appendFormattedValue(sb).append("]\n");
         }
 
         return sb.toString();
@@ -1,5 +1,7 @@
 package com.main.game;
 
+import com.main.classes.ModifierTimer;
+import com.main.classes.ResourceValue;
 import com.main.pets.Pet;
 import com.main.skills.Skill;
 
@@ -24,6 +26,15 @@ public class BattleSystem {
     private Pet pet1;
     private Pet pet2;
 
+    // 本场战斗的回合计时器，每回合结束推进一次，批量移除到期的修改器
+    private final ModifierTimer turnTimer = new ModifierTimer();
+
+    // 双方HP是否已经耗尽，由HP降到0的阈值回调设置，不需要每回合轮询
+    private boolean pet1Defeated;
+    private boolean pet2Defeated;
+    private ResourceValue.ThresholdSubscription pet1Defeat;
+    private ResourceValue.ThresholdSubscription pet2Defeat;
+
     public BattleSystem(Pet pet1,Pet pet2,int maxRoundNumber){
         this.pet1 = pet1;
         this.pet2 = pet2;
@@ -40,6 +51,12 @@ public class BattleSystem {
 
     public void battleFlow() {
         state = State.FIGHT;
+        pet1.setModifierTimer(turnTimer);
+        pet2.setModifierTimer(turnTimer);
+        pet1Defeated = pet1.getCurrentHP() <= 0;
+        pet2Defeated = pet2.getCurrentHP() <= 0;
+        pet1Defeat = pet1.getStat().getHP().addThreshold(0, ResourceValue.Crossing.DOWN, (hp, oldValue, newValue) -> pet1Defeated = true);
+        pet2Defeat = pet2.getStat().getHP().addThreshold(0, ResourceValue.Crossing.DOWN, (hp, oldValue, newValue) -> pet2Defeated = true);
         // 循环直到达到最大回合或战斗提前结束
         while (state == State.FIGHT && roundNumber < maxRoundNumber) {
             System.out.println("第 " + (roundNumber + 1) + " 回合开始：");
@@ -48,6 +65,12 @@ public class BattleSystem {
             // 宠物2出手
             if (executeTurn(pet2, pet1)) break;
             roundNumber++;
+            // 移除到期的修改器；用回合计时器开启的自然恢复（或持续流失）使HP耗尽时，由计时器在那一刻结算并触发阈值回调
+            turnTimer.advance(1);
+            if (isBattleEnded()) {
+                endBattle(determineWinner());
+                break;
+            }
         }
         // 超时判定
         if (state != State.END) {
@@ -82,18 +105,15 @@ public class BattleSystem {
     }
 
     public boolean isBattleEnded(){
-        if(pet2.getStat().getHP().getValue().getValue() == 0 || pet1.getStat().getHP().getValue().getValue() == 0){
-            return true;
-        }
-        return false;
+        return pet1Defeated || pet2Defeated;
     }
 
     public BattleResult determineWinner(){
-        if(pet2.getStat().getHP().getValue().getValue() <= 0 && pet1.getStat().getHP().getValue().getValue() <= 0){
+        if(pet2Defeated && pet1Defeated){
             return BattleResult.DRAW;
-        } else if(pet2.getStat().getHP().getValue().getValue() <= 0){
+        } else if(pet2Defeated){
             return BattleResult.A_WIN;
-        } else if (pet1.getStat().getHP().getValue().getValue() <= 0){
+        } else if (pet1Defeated){
             return BattleResult.B_WIN;
         } else {
             return BattleResult.DRAW;
@@ -103,6 +123,18 @@ public class BattleSystem {
     public void endBattle(BattleResult result){
         System.out.println("结果："+result);
         state = State.END;
+        if (pet1Defeat != null) {
+            pet1Defeat.close();
+            pet2Defeat.close();
+            pet1Defeat = null;
+            pet2Defeat = null;
+        }
+        pet1.setModifierTimer(null);
+        pet2.setModifierTimer(null);
+    }
+
+    public ModifierTimer getTurnTimer() {
+        return turnTimer;
     }
 
     public Skill getSkill(Pet pet){
@@ -2,31 +2,65 @@ package com.main.pets;
 
 import com.main.classes.Element;
 import com.main.skills.Skill;
+import com.main.storage.PetDTO;
 
-import java.util.ArrayList;
 import java.util.LinkedHashSet;
 
 public class BlackTaurus extends Pet {
+    public static final String TYPE = "BlackTaurus";
+    // 满级50级，从level级升级需要50 + 30 * (level - 1)经验
+    private static final ExperienceCurve EXPERIENCE_CURVE = ExperienceCurve.linear(50, 50, 30);
+    private static final LevelStatTable.Cache LEVEL_STAT_TABLES = new LevelStatTable.Cache(new BlackTaurusGrowth(), EXPERIENCE_CURVE.getMaxLevel());
 
     public BlackTaurus(int level, Attributes attributes, LinkedHashSet<Skill> skills) {
         super(level, attributes, skills);
         this.name = "黑金牛";
-        this.type = "BlackTaurus";
+        this.type = TYPE;
         this.elements = new Element[]{Element.earth}; // 明确元素属性
-        for (int i = 0;i < 50;i++){
-            levelExpRequirements.put(i+1,50 + 30*i);
+    }
+
+    // 从存档恢复
+    public BlackTaurus(PetDTO petDTO) {
+        super(petDTO);
+        this.elements = new Element[]{Element.earth};
+    }
+
+    /**
+     * 黑金牛的种类登记，通过ServiceLoader发现
+     */
+    public static final class Species implements PetSpecies {
+        @Override
+        public String getType() {
+            return TYPE;
         }
-        setBaseValue();
-        unifiedValue();
+
+        @Override
+        public Pet create(int level, Attributes attributes, LinkedHashSet<Skill> skills) {
+            return new BlackTaurus(level, attributes, skills);
+        }
+
+        @Override
+        public Pet restore(PetDTO petDTO) {
+            return new BlackTaurus(petDTO);
+        }
+    }
+
+    @Override
+    public ExperienceCurve getExperienceCurve() {
+        return EXPERIENCE_CURVE;
     }
 
+    @Override
+    protected LevelStatTable.Cache getLevelStatTables() {
+        return LEVEL_STAT_TABLES;
+    }
 
     @Override
     protected GrowthAttribute createGrowthAttribute() {
         return new BlackTaurusGrowth();
     }
 
-    class BlackTaurusGrowth extends Pet.GrowthAttribute {
+    static class BlackTaurusGrowth extends Pet.GrowthAttribute {
 
 
         public int getHpGrowth() {
@@ -0,0 +1,101 @@
+package com.main.pets;
+
+import java.util.Arrays;
+
+/**
+ * 不可变的等级经验曲线，同一种宠物的所有实例共享一份
+ * 每级升级所需经验和从1级起的累计经验都保存在基本类型数组中，
+ * 一次获得大量经验时用累计经验二分查找最终等级，不需要逐级计算。
+ */
+public final class ExperienceCurve {
+    // requirements[level]为从level级升到下一级需要的经验，满级为0
+    private final int[] requirements;
+    // totals[level]为从1级0经验升到level级需要的累计经验
+    private final long[] totals;
+    private final int maxLevel;
+
+    private ExperienceCurve(int[] levelRequirements) {
+        this.maxLevel = levelRequirements.length + 1;
+        this.requirements = new int[maxLevel + 1];
+        this.totals = new long[maxLevel + 1];
+        for (int level = 1; level < maxLevel; level++) {
+            int requirement = levelRequirements[level - 1];
+            if (requirement <= 0) {
+                throw new IllegalArgumentException("升级所需经验必须大于0: 等级" + level + " = " + requirement);
+            }
+            requirements[level] = requirement;
+            totals[level + 1] = totals[level] + requirement;
+        }
+    }
+
+    /**
+     * 按每级所需经验创建曲线
+     * @param levelRequirements 第i个元素为从i+1级升到i+2级需要的经验，满级为元素个数+1
+     * @return 经验曲线
+     */
+    public static ExperienceCurve of(int... levelRequirements) {
+        return new ExperienceCurve(levelRequirements.clone());
+    }
+
+    /**
+     * 创建每级所需经验线性增长的曲线：从level级升级需要base + increment * (level - 1)
+     * @param maxLevel 满级
+     * @param base 1级升2级需要的经验
+     * @param increment 每级增加的经验
+     * @return 经验曲线
+     */
+    public static ExperienceCurve linear(int maxLevel, int base, int increment) {
+        if (maxLevel < 1) {
+            throw new IllegalArgumentException("满级不能小于1: " + maxLevel);
+        }
+        int[] levelRequirements = new int[maxLevel - 1];
+        for (int i = 0; i < levelRequirements.length; i++) {
+            levelRequirements[i] = base + increment * i;
+        }
+        return new ExperienceCurve(levelRequirements);
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    /**
+     * 获取从指定等级升到下一级需要的经验
+     * @param level 等级
+     * @return 所需经验，满级时为0
+     */
+    public int getRequirement(int level) {
+        checkLevel(level);
+        return requirements[level];
+    }
+
+    /**
+     * 获取从1级0经验升到指定等级需要的累计经验
+     * @param level 等级
+     * @return 累计经验
+     */
+    public long getTotalExperience(int level) {
+        checkLevel(level);
+        return totals[level];
+    }
+
+    /**
+     * 获取累计经验对应的等级，超过满级所需经验时为满级
+     * @param totalExperience 从1级0经验起的累计经验
+     * @return 等级
+     */
+    public int getLevelForTotal(long totalExperience) {
+        if (totalExperience < 0) {
+            throw new IllegalArgumentException("累计经验不能为负数: " + totalExperience);
+        }
+        int index = Arrays.binarySearch(totals, 1, maxLevel + 1, totalExperience);
+        // 没有恰好相等的累计经验时取插入点的前一级
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private void checkLevel(int level) {
+        if (level < 1 || level > maxLevel) {
+            throw new IllegalArgumentException("等级超出范围: " + level);
+        }
+    }
+}
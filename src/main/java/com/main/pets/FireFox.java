@@ -2,30 +2,66 @@ package com.main.pets;
 
 import com.main.classes.Element;
 import com.main.skills.Skill;
+import com.main.storage.PetDTO;
 
-import java.util.ArrayList;
 import java.util.LinkedHashSet;
 
 public class FireFox extends Pet {
+    public static final String TYPE = "FireFox";
+    // 满级50级，从level级升级需要50 + 30 * (level - 1)经验
+    private static final ExperienceCurve EXPERIENCE_CURVE = ExperienceCurve.linear(50, 50, 30);
+    private static final LevelStatTable.Cache LEVEL_STAT_TABLES = new LevelStatTable.Cache(new FireFoxGrowth(), EXPERIENCE_CURVE.getMaxLevel());
 
     public FireFox(int level, Attributes attributes, LinkedHashSet<Skill> skills) {
         super(level, attributes, skills);
         this.name = "火绒狐";
-        this.type = "FireFox";
+        this.type = TYPE;
         this.elements = new Element[]{Element.fire}; // 明确元素属性
-        for (int i = 0;i < 50;i++){
-            levelExpRequirements.put(i+1,50 + 30*i);
+    }
+
+    // 从存档恢复
+    public FireFox(PetDTO petDTO) {
+        super(petDTO);
+        this.elements = new Element[]{Element.fire};
+    }
+
+    /**
+     * 火绒狐的种类登记，通过ServiceLoader发现
+     */
+    public static final class Species implements PetSpecies {
+        @Override
+        public String getType() {
+            return TYPE;
+        }
+
+        @Override
+        public Pet create(int level, Attributes attributes, LinkedHashSet<Skill> skills) {
+            return new FireFox(level, attributes, skills);
+        }
+
+        @Override
+        public Pet restore(PetDTO petDTO) {
+            return new FireFox(petDTO);
         }
-        setBaseValue();
-        unifiedValue();
     }
+
+    @Override
+    public ExperienceCurve getExperienceCurve() {
+        return EXPERIENCE_CURVE;
+    }
+
+    @Override
+    protected LevelStatTable.Cache getLevelStatTables() {
+        return LEVEL_STAT_TABLES;
+    }
+
     @Override
     protected GrowthAttribute createGrowthAttribute() {
         return new FireFoxGrowth();
     }
 
 
-    class FireFoxGrowth extends Pet.GrowthAttribute {
+    static class FireFoxGrowth extends Pet.GrowthAttribute {
 
 
         public int getHpGrowth() {
@@ -0,0 +1,138 @@
+package com.main.pets;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 某种宠物在某种天赋下各等级的基础HP、能量、攻击和防御
+ * 表格在首次使用时按成长曲线和天赋倍率一次算好，之后设置等级只需按下标读取；
+ * 超出表格范围的等级按同样的公式直接计算。
+ */
+public final class LevelStatTable {
+    private final int hpGrowth;
+    private final int energyGrowth;
+    private final int attackGrowth;
+    private final int defenseGrowth;
+    private final Attributes attributes;
+    // 下标为等级，0到maxLevel
+    private final double[] hp;
+    private final double[] energy;
+    private final double[] attack;
+    private final double[] defense;
+
+    private LevelStatTable(Pet.GrowthAttribute growth, Attributes attributes, int maxLevel) {
+        this.hpGrowth = growth.getHpGrowth();
+        this.energyGrowth = growth.getEnergyGrowth();
+        this.attackGrowth = growth.getAttackGrowth();
+        this.defenseGrowth = growth.getDefenseGrowth();
+        this.attributes = attributes;
+        this.hp = new double[maxLevel + 1];
+        this.energy = new double[maxLevel + 1];
+        this.attack = new double[maxLevel + 1];
+        this.defense = new double[maxLevel + 1];
+        for (int level = 0; level <= maxLevel; level++) {
+            hp[level] = computeHP(level);
+            energy[level] = computeEnergy(level);
+            attack[level] = computeAttack(level);
+            defense[level] = computeDefense(level);
+        }
+    }
+
+    /**
+     * 计算一张等级属性表
+     * @param growth 成长曲线
+     * @param attributes 天赋
+     * @param maxLevel 表格包含的最高等级
+     * @return 属性表
+     */
+    public static LevelStatTable build(Pet.GrowthAttribute growth, Attributes attributes, int maxLevel) {
+        if (growth == null || attributes == null) {
+            throw new IllegalArgumentException("成长曲线和天赋不能为空");
+        }
+        if (maxLevel < 0) {
+            throw new IllegalArgumentException("最高等级不能为负数: " + maxLevel);
+        }
+        return new LevelStatTable(growth, attributes, maxLevel);
+    }
+
+    public double getHP(int level) {
+        return inTable(level) ? hp[level] : computeHP(level);
+    }
+
+    public double getEnergy(int level) {
+        return inTable(level) ? energy[level] : computeEnergy(level);
+    }
+
+    public double getAttack(int level) {
+        return inTable(level) ? attack[level] : computeAttack(level);
+    }
+
+    public double getDefense(int level) {
+        return inTable(level) ? defense[level] : computeDefense(level);
+    }
+
+    public Attributes getAttributes() {
+        return attributes;
+    }
+
+    private boolean inTable(int level) {
+        return level >= 0 && level < hp.length;
+    }
+
+    private double computeHP(int level) {
+        return hpGrowth * level * attributes.getHPMultiplier();
+    }
+
+    private double computeEnergy(int level) {
+        return energyGrowth * level * attributes.getEnergyMultiplier();
+    }
+
+    private double computeAttack(int level) {
+        return attackGrowth * level * attributes.getAttackMultiplier();
+    }
+
+    private double computeDefense(int level) {
+        return defenseGrowth * level * attributes.getDefenseMultiplier();
+    }
+
+    /**
+     * 一种宠物所有天赋的属性表，按天赋首次使用时创建，可以在多个线程中共享
+     */
+    public static final class Cache {
+        private final Pet.GrowthAttribute growth;
+        private final int maxLevel;
+        private final AtomicReferenceArray<LevelStatTable> tables = new AtomicReferenceArray<>(Attributes.values().length);
+
+        /**
+         * @param growth 该种宠物的成长曲线，不能依赖宠物实例
+         * @param maxLevel 表格包含的最高等级，通常为经验曲线的满级
+         */
+        public Cache(Pet.GrowthAttribute growth, int maxLevel) {
+            if (growth == null) {
+                throw new IllegalArgumentException("成长曲线不能为空");
+            }
+            this.growth = growth;
+            this.maxLevel = maxLevel;
+        }
+
+        /**
+         * 获取指定天赋的属性表
+         * @param attributes 天赋
+         * @return 属性表，同一天赋总是返回同一个实例
+         */
+        public LevelStatTable get(Attributes attributes) {
+            if (attributes == null) {
+                throw new IllegalArgumentException("天赋不能为空");
+            }
+            LevelStatTable table = tables.get(attributes.ordinal());
+            if (table == null) {
+                // 并发首次使用时可能重复计算，只保留先发布的一份
+                LevelStatTable built = build(growth, attributes, maxLevel);
+                table = tables.compareAndExchange(attributes.ordinal(), null, built);
+                if (table == null) {
+                    table = built;
+                }
+            }
+            return table;
+        }
+    }
+}
@@ -1,13 +1,15 @@
 package com.main.pets;
 
 import com.main.classes.Element;
+import com.main.classes.ModifierTimer;
 import com.main.classes.PetStat;
+import com.main.classes.ValueFormatter;
+import com.main.classes.ValueModifier;
 import com.main.skills.Skill;
 import com.main.storage.PetDTO;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.HashMap;
 import java.util.LinkedHashSet;
 
 @Setter
@@ -27,8 +29,8 @@ public abstract class Pet {
     protected Attributes attributes;//天赋
     protected Element[] elements;//元素
     protected LinkedHashSet<Skill> skills;//技能集合
-    protected HashMap<Integer,Integer> levelExpRequirements = new HashMap<>();//升级需要的经验值
     protected GrowthAttribute growth;//能力随等级成长曲线
+    protected ModifierTimer modifierTimer;//战斗中的回合计时器，不在战斗中时为null
 
 
     public Pet(int level, Attributes attributes, LinkedHashSet<Skill> skills) {
@@ -42,11 +44,33 @@ public abstract class Pet {
         unifiedValue();
     }
 
+    /**
+     * 从存档恢复宠物，属性直接使用存档中的数据，不按等级重新计算
+     * @param petDTO 存档数据
+     */
     public Pet(PetDTO petDTO) {
-
+        this.name = petDTO.getName();
+        this.type = petDTO.getType();
+        this.level = petDTO.getLevel();
+        this.experience = petDTO.getExperience();
+        this.attributes = petDTO.getAttributes();
+        this.statue = petDTO.getStatue() != null ? Statue.valueOf(petDTO.getStatue()) : Statue.Free;
+        this.skills = petDTO.toSkills();
+        this.growth = createGrowthAttribute();
+        this.stat = petDTO.getStat().toPetStat();
     }
 
 
+    /**
+     * 获取该种宠物的经验曲线，由子类返回同种宠物共享的实例
+     */
+    public abstract ExperienceCurve getExperienceCurve();
+
+    /**
+     * 获取该种宠物各天赋的等级属性表，由子类返回同种宠物共享的实例
+     */
+    protected abstract LevelStatTable.Cache getLevelStatTables();
+
     /**
      * 创建宠物成长属性的抽象方法，由子类实现
      */
@@ -62,30 +86,31 @@ public abstract class Pet {
         public abstract int getEnergyGrowth();
     }
 
+    /**
+     * 按当前等级和天赋从属性表设置基础属性，基础值由等级推导，不记录修改历史
+     */
     public void setBaseValue(){
-
-        double attackMultiplier = attributes.getAttackMultiplier();
-        double defenseMultiplier = attributes.getDefenseMultiplier();
-        double hpMultiplier = attributes.getHPMultiplier();
-        double energyMultiplier = attributes.getEnergyMultiplier();
+        LevelStatTable table = getLevelStatTables().get(attributes);
 
         if(this.stat == null ){
-            stat = new PetStat((growth.getHpGrowth() * level * hpMultiplier),(growth.getEnergyGrowth() * level * energyMultiplier),(growth.getAttackGrowth() * level * attackMultiplier),(growth.getDefenseGrowth() * level * defenseMultiplier));
+            stat = new PetStat(table.getHP(level), table.getEnergy(level), table.getAttack(level), table.getDefense(level));
         } else {
-            stat.getHP().setBaseMaxValue((growth.getHpGrowth() * level * hpMultiplier),"更新基值");
-            stat.getEnergy().setBaseMaxValue((growth.getEnergyGrowth() * level * energyMultiplier),"更新基值");
-            stat.getBaseAttack().setBaseValue((growth.getAttackGrowth() * level * attackMultiplier),"更新基值");
-            stat.getBaseDefense().setBaseValue((growth.getDefenseGrowth() * level * defenseMultiplier),"更新基值");
+            try (ValueModifier.Transaction ignored = stat.beginBatch()) {
+                stat.getHP().resetBaseMaxValue(table.getHP(level));
+                stat.getEnergy().resetBaseMaxValue(table.getEnergy(level));
+                stat.getBaseAttack().resetBaseValue(table.getAttack(level));
+                stat.getBaseDefense().resetBaseValue(table.getDefense(level));
+            }
         }
-
-
     }
 
     public void unifiedValue(){
-        stat.getHP().unifiedAll();
-        stat.getEnergy().unifiedAll();
-        stat.getBaseAttack().clearAllModifiers();
-        stat.getBaseDefense().clearAllModifiers();
+        try (ValueModifier.Transaction ignored = stat.beginBatch()) {
+            stat.getHP().unifiedAll();
+            stat.getEnergy().unifiedAll();
+            stat.getBaseAttack().clearAllModifiers();
+            stat.getBaseDefense().clearAllModifiers();
+        }
     }
 
     public PetStat getStat() {
@@ -128,6 +153,7 @@ public abstract class Pet {
 
     /**
      * 增加经验值，并处理可能的升级
+     * 一次升多级时直接由经验曲线算出最终等级，属性只重新计算一次；达到满级后多余的经验不保留
      * @param experience 要增加的经验值
      * @return 是否发生升级
      */
@@ -136,22 +162,24 @@ public abstract class Pet {
             throw new IllegalArgumentException("experience must be a positive integer");
         }
 
-        if (level >= levelExpRequirements.size()) {
+        ExperienceCurve curve = getExperienceCurve();
+        if (level >= curve.getMaxLevel()) {
             return false;
         }
 
-        if(this.experience + experience >= levelExpRequirements.get(level)) {
-            experience -= levelExpRequirements.get(level) - this.experience;
-            level++;
-            setBaseValue();//更新属性变量值
-            unifiedValue();//更新其他变量值
-            this.experience = 0;
-            addExperience(experience);
-            return true;//升级
-        } else {
+        long total = curve.getTotalExperience(level) + this.experience + experience;
+        int newLevel = curve.getLevelForTotal(total);
+        if (newLevel == level) {
             this.experience += experience;
             return false;//未升级
         }
+        level = newLevel;
+        this.experience = newLevel >= curve.getMaxLevel() ? 0 : (int) (total - curve.getTotalExperience(newLevel));
+        try (ValueModifier.Transaction ignored = stat.beginBatch()) {
+            setBaseValue();//更新属性变量值
+            unifiedValue();//更新其他变量值
+        }
+        return true;//升级
     }
 
     //------------------------技能相关方法--------------------------
@@ -228,6 +256,25 @@ public abstract class Pet {
     }
 
 
+    /**
+     * 让属性上的临时修改器在指定回合数后自动移除，只能在战斗中使用
+     * @param id 修正器ID
+     * @param turns 持续回合数
+     * @return 是否找到该修正器
+     */
+    public boolean expireModifierAfterTurns(String id, long turns) {
+        if (modifierTimer == null) {
+            throw new IllegalStateException("宠物不在战斗中，无法按回合计时");
+        }
+        for (ValueModifier modifier : stat.getValueModifiers()) {
+            if (modifier.expireAfter(id, modifierTimer, turns) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
     //------------------------HP相关方法--------------------------
     /**
      * 在基础HP最大值上增加指定值
@@ -303,7 +350,7 @@ public abstract class Pet {
      * @return 当前HP
      */
     public double getCurrentHP() {
-        return stat.getHP().getValue().doubleValue();
+        return stat.getHP().getCurrentValue();
     }
     /**
      * 获取最大HP值
@@ -396,7 +443,7 @@ public abstract class Pet {
      * @return 当前能量
      */
     public double getCurrentEnergy() {
-        return stat.getEnergy().getValue().doubleValue();
+        return stat.getEnergy().getCurrentValue();
     }
     /**
      * 获取最大能量值
@@ -533,9 +580,18 @@ public abstract class Pet {
     //------------------------辅助方法--------------------------
     @Override
     public String toString() {
-        return String.format(
-                "%s [name=%s, type=%s, level=%d, exp=%d, HP=%.4f/%.4f,Energy=%.4f/%.4f, ATK=%.4f, DEF=%.4f]",
-                getClass().getSimpleName(), name, type, level, experience, getCurrentHP(), getMaxHP(),getCurrentEnergy(), getMaxEnergy(),getCurrentAttack(), getCurrentDefense()
-        );
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(getClass().getSimpleName()).append(" [name=").append(name)
+                .append(", type=").append(type)
+                .append(", level=").append(level)
+                .append(", exp=").append(experience)
+                .append(", HP=");
+        ValueFormatter.appendFixed(sb, getCurrentHP(), 4).append('/');
+        ValueFormatter.appendFixed(sb, getMaxHP(), 4).append(",Energy=");
+        ValueFormatter.appendFixed(sb, getCurrentEnergy(), 4).append('/');
+        ValueFormatter.appendFixed(sb, getMaxEnergy(), 4).append(", ATK=");
+        ValueFormatter.appendFixed(sb, getCurrentAttack(), 4).append(", DEF=");
+        ValueFormatter.appendFixed(sb, getCurrentDefense(), 4).append(']');
+        return sb.toString();
     }
 }
@@ -0,0 +1,35 @@
+package com.main.pets;
+
+import com.main.skills.Skill;
+import com.main.storage.PetDTO;
+
+import java.util.LinkedHashSet;
+
+/**
+ * 一种宠物的创建方式，由SpeciesRegistry通过ServiceLoader发现
+ * 新种类在META-INF/services/com.main.pets.PetSpecies中登记实现类即可使用，实现类需要公开的无参构造器。
+ */
+public interface PetSpecies {
+
+    /**
+     * 获取种类名称，与Pet.getType()和存档中的type相同
+     * @return 种类名称
+     */
+    String getType();
+
+    /**
+     * 创建新宠物，按等级和天赋计算属性
+     * @param level 等级
+     * @param attributes 天赋
+     * @param skills 技能集合，可以为null
+     * @return 宠物
+     */
+    Pet create(int level, Attributes attributes, LinkedHashSet<Skill> skills);
+
+    /**
+     * 从存档恢复宠物，直接使用存档中的属性
+     * @param petDTO 存档数据
+     * @return 宠物
+     */
+    Pet restore(PetDTO petDTO);
+}
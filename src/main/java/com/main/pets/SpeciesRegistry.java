@@ -0,0 +1,91 @@
+package com.main.pets;
+
+import com.main.skills.Skill;
+import com.main.storage.PetDTO;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 宠物种类注册表，按种类名称查找创建和恢复宠物的工厂
+ * 首次使用时通过ServiceLoader加载所有登记的PetSpecies，之后创建和读档都只是一次哈希查找，不使用反射。
+ * 同名种类只保留先登记的一个。
+ */
+public final class SpeciesRegistry {
+    private static final Map<String, PetSpecies> SPECIES = new ConcurrentHashMap<>();
+
+    static {
+        for (PetSpecies species : ServiceLoader.load(PetSpecies.class)) {
+            SPECIES.putIfAbsent(species.getType(), species);
+        }
+    }
+
+    private SpeciesRegistry() {
+    }
+
+    /**
+     * 登记一个种类，用于没有通过ServiceLoader登记的种类
+     * @param species 种类
+     * @throws IllegalStateException 同名种类已经登记为其他实现时
+     */
+    public static void register(PetSpecies species) {
+        if (species == null || species.getType() == null) {
+            throw new IllegalArgumentException("种类和种类名称不能为空");
+        }
+        PetSpecies existing = SPECIES.putIfAbsent(species.getType(), species);
+        if (existing != null && existing != species) {
+            throw new IllegalStateException("宠物种类已登记: " + species.getType());
+        }
+    }
+
+    /**
+     * 获取种类
+     * @param type 种类名称
+     * @return 种类
+     * @throws IllegalArgumentException 种类未登记时
+     */
+    public static PetSpecies get(String type) {
+        PetSpecies species = type == null ? null : SPECIES.get(type);
+        if (species == null) {
+            throw new IllegalArgumentException("未知的宠物种类: " + type);
+        }
+        return species;
+    }
+
+    public static boolean isRegistered(String type) {
+        return type != null && SPECIES.containsKey(type);
+    }
+
+    /**
+     * 获取所有已登记的种类名称
+     * @return 只读视图
+     */
+    public static Set<String> getTypes() {
+        return Collections.unmodifiableSet(SPECIES.keySet());
+    }
+
+    /**
+     * 创建新宠物
+     * @param type 种类名称
+     * @param level 等级
+     * @param attributes 天赋
+     * @param skills 技能集合，可以为null
+     * @return 宠物
+     */
+    public static Pet create(String type, int level, Attributes attributes, LinkedHashSet<Skill> skills) {
+        return get(type).create(level, attributes, skills);
+    }
+
+    /**
+     * 从存档恢复宠物
+     * @param petDTO 存档数据
+     * @return 宠物
+     */
+    public static Pet restore(PetDTO petDTO) {
+        return get(petDTO.getType()).restore(petDTO);
+    }
+}
@@ -1,6 +1,8 @@
 package com.main.skills;
 
 import com.main.classes.Element;
+import com.main.classes.FixedValue;
+import com.main.classes.StatValue;
 import com.main.classes.ValueModifier;
 import com.main.pets.Pet;
 import lombok.Getter;
@@ -12,7 +14,8 @@ public abstract class Skill {
     // 基础属性（所有技能共有）
     protected String name;
     protected Element element;
-    protected ValueModifier energyCost;
+    // 能量消耗，没有修改器时为FixedValue，只有通过getEnergyCostModifier()获取时才换成ValueModifier
+    protected StatValue energyCost;
     protected boolean ifEnergyCost;
     protected SkillType type;
     protected TargetType targetType;
@@ -30,7 +33,7 @@ public abstract class Skill {
     }
 
     // 构造器（子类调用）
-    protected Skill(String name, Element element, ValueModifier energyCost, boolean ifEnergyCost,SkillType type, TargetType targetType, String description) {
+    protected Skill(String name, Element element, StatValue energyCost, boolean ifEnergyCost,SkillType type, TargetType targetType, String description) {
         this.name = name;
         this.element = element;
         this.energyCost = energyCost;
@@ -43,11 +46,21 @@ public abstract class Skill {
     // 抽象方法：子类或策略类实现具体效果
     public abstract boolean applyEffect(Pet caster, Pet target);
 
+    // 获取可添加修改器的能量消耗，常量消耗在第一次调用时换成以它为基础值的ValueModifier；只读取消耗请使用getEnergyCost()，不会替换
+    public ValueModifier getEnergyCostModifier() {
+        if (energyCost instanceof ValueModifier) {
+            return (ValueModifier) energyCost;
+        }
+        ValueModifier modifier = new ValueModifier(energyCost.getFinalValue());
+        energyCost = modifier;
+        return modifier;
+    }
+
     // 建造者类（用于快速配置基础技能）
     public static class SkillBuilder {
         private String name;
         private Element element;
-        private ValueModifier energyCost;
+        private StatValue energyCost;
         private SkillType type;
         private SkillEffect effect;
         private TargetType targetType;
@@ -56,7 +69,7 @@ public abstract class Skill {
 
         public SkillBuilder setName(String name) { this.name = name; return this; }
         public SkillBuilder setElement(Element element) { this.element = element; return this; }
-        public SkillBuilder setEnergyCost(double cost, boolean ifCost) { this.energyCost = new ValueModifier(cost);this.ifEnergyCost = ifCost; return this; }
+        public SkillBuilder setEnergyCost(double cost, boolean ifCost) { this.energyCost = FixedValue.of(cost);this.ifEnergyCost = ifCost; return this; }
         //public SkillBuilder setIfEnergyCost(boolean ifCost) {this.ifEnergyCost = ifCost; return this; }
         public SkillBuilder setType(SkillType type) { this.type = type; return this; }
         public SkillBuilder setEffect(SkillEffect effect) { this.effect = effect; return this; }
@@ -73,12 +86,13 @@ public abstract class Skill {
                         return false;
                     }
 
-                    if(!caster.hasEnoughEnergy(energyCost.getFinalValue())) {
+                    double cost = energyCost.getFinalValue();
+                    if(!caster.hasEnoughEnergy(cost)) {
                         return false;
                     }
 
                     if(ifEnergyCost) {
-                        caster.removeEnergy(energyCost.getFinalValue());
+                        caster.removeEnergy(cost);
                     }
                     effect.apply(caster, target);
                     return true;
@@ -107,7 +121,8 @@ public abstract class Skill {
         StringBuilder str = new StringBuilder();
         str.append("名称:").append(name)
                 .append(" 元素:").append(element.toString())
-                .append(" 消耗能量值:").append(energyCost)
+                .append(" 消耗能量值:");
+        energyCost.appendFormattedValue(str)
                 .append(" 种类:").append(type.toString())
                 .append(" 对象目标:").append(targetType.toString())
                 .append(" 描述:").append(description)
@@ -6,7 +6,9 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SkillLibrary {
 
@@ -30,6 +32,17 @@ public class SkillLibrary {
         return Collections.unmodifiableList(skills);
     }
 
+    // 按中文名称索引的技能，首次按名称查找时创建，读档时不再每次反射遍历字段；同名技能取先声明的
+    private static final class SkillsByName {
+        private static final Map<String, Skill> SKILLS = new HashMap<>();
+
+        static {
+            for (Skill skill : getAllSkills()) {
+                SKILLS.putIfAbsent(skill.getName(), skill);
+            }
+        }
+    }
+
     public enum Type{
         Origen,Chinese
     }
@@ -44,11 +57,9 @@ public class SkillLibrary {
                 throw new RuntimeException("找不到静态对象：" + name + "." + name, e);
             }
             case Chinese:
-            List<Skill> skills = getAllSkills();
-            for (Skill skill : skills) {
-                if (name.equals(skill.getName())) {
-                    return skill;
-                }
+            Skill skill = SkillsByName.SKILLS.get(name);
+            if (skill != null) {
+                return skill;
             }
             throw new RuntimeException("找不到静态对象：" + name + "." + name);
         }
@@ -14,6 +14,10 @@ public class ObservableDoubleDTO {
         this.value = od.getValue();
     }
 
+    public ObservableDoubleDTO(double value) {
+        this.value = value;
+    }
+
     public ObservableDouble toObservableDouble() {
         return new ObservableDouble(value);
     }
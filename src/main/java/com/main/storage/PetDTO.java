@@ -3,6 +3,7 @@ package com.main.storage;
 import com.main.classes.Element;
 import com.main.pets.Attributes;
 import com.main.pets.Pet;
+import com.main.pets.SpeciesRegistry;
 import com.main.skills.Skill;
 import static com.main.skills.SkillLibrary.getSkillByName;
 
@@ -10,8 +11,6 @@ import com.main.skills.SkillLibrary;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.LinkedHashSet;
 
 @Setter
@@ -46,9 +45,23 @@ public class PetDTO {
         }
     }
 
+    /**
+     * 按种类从存档恢复宠物，种类由SpeciesRegistry查找
+     * @return 宠物
+     */
     public Pet toPet(){
+        return SpeciesRegistry.restore(this);
+    }
 
+    /**
+     * 按技能名称查找技能，找不到的技能跳过
+     * @return 技能集合
+     */
+    public LinkedHashSet<Skill> toSkills(){
         LinkedHashSet<Skill> petSkills = new LinkedHashSet<>();
+        if (skills == null) {
+            return petSkills;
+        }
         for (String skill : skills) {
             Skill s;
             try {
@@ -62,30 +75,7 @@ public class PetDTO {
             }
             petSkills.add(s);
         }
-
-        Pet pet;
-        try {
-            Class<?> clazz = Class.forName("com.main.pets." + getType());
-            Constructor<?> constructor = clazz.getConstructor(int.class, Attributes.class, LinkedHashSet.class);
-            pet = (Pet) constructor.newInstance(getLevel(), getAttributes(), petSkills);
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(e);
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
-        } catch (InstantiationException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException(e);
-        }
-
-        pet.setLevel(level);
-        pet.setExperience(experience);
-        pet.setStatue(Pet.Statue.valueOf(statue));
-        pet.setStat(stat.toPetStat());
-
-        return pet;
+        return petSkills;
     }
 
 
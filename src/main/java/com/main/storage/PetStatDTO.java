@@ -22,6 +22,13 @@ public class PetStatDTO {
         this.baseDefense = new ValueModifierDTO(petStat.getBaseDefense());
     }
 
+    public PetStatDTO(PetStat.Snapshot snapshot) {
+        this.HP = new ResourceValueDTO(snapshot.getMaxHP(), snapshot.getCurrentHP());
+        this.energy = new ResourceValueDTO(snapshot.getMaxEnergy(), snapshot.getCurrentEnergy());
+        this.baseAttack = new ValueModifierDTO(snapshot.getAttack());
+        this.baseDefense = new ValueModifierDTO(snapshot.getDefense());
+    }
+
     public PetStat toPetStat() {
         return new PetStat(HP.toResourceValue(),energy.toResourceValue(),baseAttack.toValueModifier(),baseDefense.toValueModifier());
     }
@@ -2,6 +2,7 @@ package com.main.storage;
 
 import com.main.classes.ObservableDouble;
 import com.main.classes.ResourceValue;
+import com.main.classes.ValueModifier;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -15,7 +16,12 @@ public class ResourceValueDTO {
 
     public ResourceValueDTO(ResourceValue rv) {
         baseMaxValue = new ValueModifierDTO(rv.getBaseMaxValue());
-        value = new ObservableDoubleDTO(rv.getValue());
+        value = new ObservableDoubleDTO(rv.getCurrentValue());
+    }
+
+    public ResourceValueDTO(ValueModifier.ValueSnapshot baseMaxValue, double value) {
+        this.baseMaxValue = new ValueModifierDTO(baseMaxValue);
+        this.value = new ObservableDoubleDTO(value);
     }
 
     public ResourceValue toResourceValue(){
@@ -1,8 +1,9 @@
 package com.main.storage;
 
 import com.main.classes.ValueModifier;
-import com.main.classes.ValueModifier.ModifierType;
+import com.main.classes.ValueModifier.ModifierSnapshot;
 import com.main.classes.ValueModifier.TemporaryModifier;
+import com.main.classes.ValueModifier.ValueSnapshot;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -28,18 +29,23 @@ public class ValueModifierDTO {
     public ValueModifierDTO() {}
 
     public ValueModifierDTO(ValueModifier vm) {
-        this.baseValue = vm.getCurrentBaseValue();
+        this(vm.snapshot());
+    }
+
+    // 从快照创建，可以在存档线程中调用，不接触原对象
+    public ValueModifierDTO(ValueSnapshot snapshot) {
+        this.baseValue = snapshot.getBaseValue();
 
-        for (TemporaryModifier mod : vm.getAllModifiers()) {
+        for (ModifierSnapshot mod : snapshot.getModifiers()) {
             tempModifiers.add(new TempModifierDTO(mod));
         }
 
         // 精度和格式设置
-        this.calculationPrecision = vm.getCalculationPrecision();
-        this.roundingForCalculation = vm.isRoundingForCalculation();
-        this.displayPrecision = vm.getDisplayPrecision();
-        this.roundingForDisplay = vm.isRoundingForDisplay();
-        this.formatPattern = vm.getFormatPattern();
+        this.calculationPrecision = snapshot.getCalculationPrecision();
+        this.roundingForCalculation = snapshot.isRoundingForCalculation();
+        this.displayPrecision = snapshot.getDisplayPrecision();
+        this.roundingForDisplay = snapshot.isRoundingForDisplay();
+        this.formatPattern = snapshot.getFormatPattern();
     }
 
     public ValueModifier toValueModifier() {
@@ -76,6 +82,14 @@ public class ValueModifierDTO {
             this.priority = mod.getPriority();
         }
 
+        public TempModifierDTO(ModifierSnapshot mod) {
+            this.id = mod.getId();
+            this.tag = mod.getTag();
+            this.type = mod.getType().name();
+            this.value = mod.getValue();
+            this.priority = mod.getPriority();
+        }
+
         public void applyTo(ValueModifier vm) {
             switch (type) {
                 case "ADDITIVE" -> vm.addAdditiveModifier(id, value, tag, priority);
@@ -0,0 +1,114 @@
+package com.main.test;
+
+import com.main.classes.AtomicResourceValue;
+import com.main.classes.ConcurrentValueModifier;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AtomicResourceValue并发压力测试
+ * 1. 不触及上下限的随机增减：结束后的值必须等于初始值加上所有线程实际生效的增量之和（没有丢失更新）
+ * 2. 多个线程同时每次扣1直到见底：removeValue恰好有(初始值-1)次返回true，最终值为0
+ * 3. 多个线程同时每次加1直到上限：addValue恰好有(最大值-1)次返回true，最终值为最大值
+ * 所有数值都是整数，double运算没有舍入误差
+ */
+public class AtomicResourceValueStressTest {
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 50_000;
+    private static final int POOL = 100_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        boolean ok = true;
+        long begin = System.nanoTime();
+
+        // 1. 随机增减
+        double start = 1e9;
+        AtomicResourceValue resource = new AtomicResourceValue(new ConcurrentValueModifier(2e9), start);
+        AtomicLong appliedTotal = new AtomicLong();
+        run(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long applied = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                int amount = random.nextInt(1, 100);
+                switch (i % 3) {
+                    case 0:
+                        resource.removeValue(amount);
+                        applied -= amount;
+                        break;
+                    case 1:
+                        resource.addValue(amount);
+                        applied += amount;
+                        break;
+                    default:
+                        applied += (long) resource.applyDelta(random.nextBoolean() ? amount : -amount);
+                }
+            }
+            appliedTotal.addAndGet(applied);
+        });
+        double expected = start + appliedTotal.get();
+        boolean noLostUpdates = resource.getCurrentValue() == expected;
+        System.out.printf("随机增减: 当前值 %.0f (预期 %.0f)%n", resource.getCurrentValue(), expected);
+        ok &= noLostUpdates;
+
+        // 2. 同时扣到见底
+        AtomicResourceValue depleting = new AtomicResourceValue(POOL);
+        AtomicLong removedTrue = new AtomicLong();
+        run(() -> {
+            long count = 0;
+            for (int i = 0; i < POOL * 2 / THREADS; i++) {
+                if (depleting.removeValue(1)) {
+                    count++;
+                }
+            }
+            removedTrue.addAndGet(count);
+        });
+        System.out.printf("同时扣减: 当前值 %.0f, 返回true %d次 (预期 %d)%n",
+                depleting.getCurrentValue(), removedTrue.get(), POOL - 1);
+        ok &= depleting.getCurrentValue() == 0 && removedTrue.get() == POOL - 1;
+
+        // 3. 同时加到上限
+        AtomicResourceValue filling = new AtomicResourceValue(new ConcurrentValueModifier(POOL), 0);
+        AtomicLong addedTrue = new AtomicLong();
+        run(() -> {
+            long count = 0;
+            for (int i = 0; i < POOL * 2 / THREADS; i++) {
+                if (filling.addValue(1)) {
+                    count++;
+                }
+            }
+            addedTrue.addAndGet(count);
+        });
+        System.out.printf("同时增加: 当前值 %.0f, 返回true %d次 (预期 %d)%n",
+                filling.getCurrentValue(), addedTrue.get(), POOL - 1);
+        ok &= filling.getCurrentValue() == POOL && addedTrue.get() == POOL - 1;
+
+        System.out.printf("耗时: %dms%n", (System.nanoTime() - begin) / 1_000_000);
+        System.out.println(ok ? "通过" : "失败");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static void run(Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run();
+            }, "worker-" + t);
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+}
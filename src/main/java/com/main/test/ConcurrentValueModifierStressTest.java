@@ -0,0 +1,177 @@
+package com.main.test;
+
+import com.main.classes.ConcurrentValueModifier;
+import com.main.classes.ValueModifier;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConcurrentValueModifier并发压力测试
+ * 写线程每次在一个批量修改中成对地加入或移除+1修改器、或把一对修改器换成基础值加2，因此已提交的最终值始终是偶数；
+ * 读线程不断检查读到的最终值为偶数、修改代数不倒退，结束后核对最终值与预期一致；
+ * 另外让多个线程以相反的顺序对同一组实例开始跨实例批量修改，检查不会死锁
+ */
+public class ConcurrentValueModifierStressTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int ITERATIONS = 20_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentValueModifier value = new ConcurrentValueModifier(0.0);
+        ValueModifier.ModifiedValue tracked = value.createModifiedValue();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] writers = new Thread[WRITERS];
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers[w] = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < ITERATIONS; i++) {
+                    String a = "w" + writer + "-" + i + "-a";
+                    String b = "w" + writer + "-" + i + "-b";
+                    String tag = "stress.w" + writer;
+                    value.batch(m -> {
+                        m.addAdditiveModifier(a, 1, tag);
+                        m.addAdditiveModifier(b, 1, tag);
+                    });
+                    if (i % 3 == 0) {
+                        try (ValueModifier.Transaction ignored = value.beginBatch()) {
+                            value.removeModifier(a);
+                            value.removeModifier(b);
+                        }
+                    } else if (i % 3 == 1) {
+                        // 在同一批量修改中把两个+1修改器换成基础值+2
+                        value.batch(m -> {
+                            m.removeModifier(a);
+                            m.modifyBaseValue(2, "压力测试");
+                            m.removeModifier(b);
+                        });
+                    } else {
+                        value.removeModifiersByTag(tag);
+                    }
+                }
+            }, "writer-" + w);
+        }
+
+        Thread[] readers = new Thread[READERS];
+        for (int r = 0; r < READERS; r++) {
+            readers[r] = new Thread(() -> {
+                await(start);
+                long lastGeneration = -1;
+                long count = 0;
+                while (running.get()) {
+                    long generation = value.getGeneration();
+                    double finalValue = value.getFinalValue();
+                    if (finalValue % 2 != 0 || generation < lastGeneration) {
+                        failures.incrementAndGet();
+                    }
+                    lastGeneration = generation;
+                    if ((count & 1023) == 0 && tracked.getValue() % 2 != 0) {
+                        failures.incrementAndGet();
+                    }
+                    count++;
+                }
+                reads.addAndGet(count);
+            }, "reader-" + r);
+        }
+
+        for (Thread t : readers) {
+            t.start();
+        }
+        for (Thread t : writers) {
+            t.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread t : writers) {
+            t.join();
+        }
+        running.set(false);
+        for (Thread t : readers) {
+            t.join();
+        }
+        long elapsedMillis = (System.nanoTime() - begin) / 1_000_000;
+
+        // 每个写线程在i%3==1的轮次把基础值加2，所有修改器都已移除
+        int baseIncrements = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (i % 3 == 1) {
+                baseIncrements++;
+            }
+        }
+        double expectedBase = 2.0 * baseIncrements * WRITERS;
+        double expectedFinal = expectedBase;
+
+        boolean crossBatchOk = crossBatch();
+
+        boolean ok = crossBatchOk && failures.get() == 0
+                && value.getCurrentBaseValue() == expectedBase
+                && value.getFinalValue() == expectedFinal
+                && tracked.getValue() == expectedFinal
+                && value.getAllModifiers().isEmpty();
+
+        System.out.printf("耗时: %dms, 读取次数: %d, 违反不变式: %d%n", elapsedMillis, reads.get(), failures.get());
+        System.out.printf("基础值: %.1f (预期 %.1f), 最终值: %.1f (预期 %.1f), 修改器: %d%n",
+                value.getCurrentBaseValue(), expectedBase, value.getFinalValue(), expectedFinal,
+                value.getAllModifiers().size());
+        System.out.println(ok ? "通过" : "失败");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 一半线程按(a, b, c)、另一半按(c, b, a)的顺序开始跨实例批量修改，每次给三个实例的基础值各加1
+     * @return 是否在限定时间内完成且结果正确
+     */
+    private static boolean crossBatch() throws InterruptedException {
+        ConcurrentValueModifier a = new ConcurrentValueModifier(0.0);
+        ConcurrentValueModifier b = new ConcurrentValueModifier(0.0);
+        ConcurrentValueModifier c = new ConcurrentValueModifier(0.0);
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[WRITERS];
+        for (int t = 0; t < WRITERS; t++) {
+            ValueModifier[] order = t % 2 == 0 ? new ValueModifier[]{a, b, c} : new ValueModifier[]{c, b, a};
+            threads[t] = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < ITERATIONS; i++) {
+                    try (ValueModifier.Transaction ignored = ValueModifier.beginBatch(order)) {
+                        for (ValueModifier value : order) {
+                            value.modifyBaseValue(1, "跨实例批量修改");
+                        }
+                    }
+                }
+            }, "cross-batch-" + t);
+            threads[t].setDaemon(true);
+            threads[t].start();
+        }
+        start.countDown();
+        long deadline = System.currentTimeMillis() + 30_000;
+        for (Thread t : threads) {
+            t.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+        double expected = (double) WRITERS * ITERATIONS;
+        boolean finished = true;
+        for (Thread t : threads) {
+            finished &= !t.isAlive();
+        }
+        System.out.printf("跨实例批量修改: %s, 基础值: %.0f/%.0f/%.0f (预期 %.0f)%n", finished ? "完成" : "超时（死锁）",
+                a.getCurrentBaseValue(), b.getCurrentBaseValue(), c.getCurrentBaseValue(), expected);
+        return finished && a.getCurrentBaseValue() == expected
+                && b.getCurrentBaseValue() == expected && c.getCurrentBaseValue() == expected;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
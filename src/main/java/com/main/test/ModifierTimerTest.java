@@ -0,0 +1,108 @@
+package com.main.test;
+
+import com.main.classes.ModifierTimer;
+import com.main.classes.ValueModifier;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 修改器到期计时器的回归测试
+ * 1. 真实时间计时器在时钟走过一段时间但未推进时安排的修改器，按时钟的当前时间计算到期
+ * 2. 长时间空闲后推进，只等待一个很久以后到期的修改器时不逐刻推进
+ * 3. 随机安排、取消和推进，到期结果与逐一比较到期时间的结果一致
+ */
+public class ModifierTimerTest {
+
+    public static void main(String[] args) {
+        boolean ok = true;
+
+        // 1. 时钟已走过10秒但计时器未推进，1秒的增益不应在1毫秒后到期
+        AtomicLong clock = new AtomicLong(0);
+        ModifierTimer timer = ModifierTimer.realTime(clock::get, 1);
+        ValueModifier value = new ValueModifier(10.0);
+        value.addAdditiveModifier("buff", 5, "buff");
+        clock.set(10_000);
+        value.expireAfter("buff", timer, 1000);
+        clock.set(10_001);
+        timer.advanceToNow();
+        ok &= check("时钟走过后安排, 1毫秒后", value.getFinalValue(), 15.0);
+        clock.set(10_999);
+        timer.advanceToNow();
+        ok &= check("时钟走过后安排, 999毫秒后", value.getFinalValue(), 15.0);
+        clock.set(11_000);
+        timer.advanceToNow();
+        ok &= check("时钟走过后安排, 1000毫秒后", value.getFinalValue(), 10.0);
+
+        // 2. 空闲一小时后推进，等待中的两小时增益不应被逐刻推进
+        clock.set(0);
+        ModifierTimer idle = ModifierTimer.realTime(clock::get, 1);
+        ValueModifier longBuff = new ValueModifier(10.0);
+        longBuff.addAdditiveModifier("long", 5, "buff");
+        longBuff.expireAfter("long", idle, 2 * 3_600_000L);
+        clock.set(3_600_000L);
+        long begin = System.nanoTime();
+        idle.advanceToNow();
+        long elapsedMicros = (System.nanoTime() - begin) / 1000;
+        ok &= check("空闲一小时后", longBuff.getFinalValue(), 15.0);
+        clock.set(2 * 3_600_000L);
+        idle.advanceToNow();
+        ok &= check("两小时后", longBuff.getFinalValue(), 10.0);
+        System.out.printf("空闲一小时后推进耗时: %dus%n", elapsedMicros);
+
+        // 3. 与到期时间的直接比较对照
+        ok &= randomized();
+
+        System.out.println(ok ? "通过" : "失败");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean randomized() {
+        Random random = new Random(42);
+        ModifierTimer timer = new ModifierTimer();
+        ValueModifier value = new ValueModifier(0.0);
+        int count = 2000;
+        long[] deadlines = new long[count];
+        for (int i = 0; i < count; i++) {
+            value.addAdditiveModifier("m" + i, 1, "random");
+            // 覆盖各层时间轮以及溢出链表
+            long duration = 1 + (random.nextInt(4) == 0 ? (long) random.nextInt(1 << 26) : random.nextInt(5000));
+            value.expireAfter("m" + i, timer, duration);
+            deadlines[i] = duration;
+        }
+        boolean[] removed = new boolean[count];
+        for (int i = 0; i < count; i += 7) {
+            value.removeModifier("m" + i);
+            removed[i] = true;
+        }
+        int mismatches = 0;
+        long tick = 0;
+        while (tick < (1L << 26) + 2) {
+            tick += 1 + (random.nextBoolean() ? random.nextInt(100) : random.nextInt(1 << 22));
+            timer.advanceTo(tick);
+            Set<String> remaining = new HashSet<>();
+            for (ValueModifier.TemporaryModifier modifier : value.getAllModifiers()) {
+                remaining.add(modifier.getId());
+            }
+            for (int i = 0; i < count; i++) {
+                boolean expected = !removed[i] && deadlines[i] > tick;
+                if (remaining.contains("m" + i) != expected) {
+                    mismatches++;
+                }
+            }
+        }
+        boolean passed = mismatches == 0 && timer.size() == 0 && value.getAllModifiers().isEmpty();
+        System.out.printf("随机对照: 不一致 %d, 剩余 %d%s%n", mismatches, timer.size(), passed ? "" : " 失败");
+        return passed;
+    }
+
+    private static boolean check(String name, double actual, double expected) {
+        boolean passed = actual == expected;
+        System.out.printf("%s: 最终值 %.1f (预期 %.1f)%s%n", name, actual, expected, passed ? "" : " 失败");
+        return passed;
+    }
+}
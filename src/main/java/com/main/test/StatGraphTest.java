@@ -0,0 +1,57 @@
+package com.main.test;
+
+import com.main.classes.StatGraph;
+import com.main.classes.ValueModifier;
+import com.main.pets.Attributes;
+import com.main.pets.BlackTaurus;
+import com.main.pets.Pet;
+
+/**
+ * 属性依赖图的回归测试：连接生成的修改器被其他操作移除后应立即恢复
+ * 1. 宠物恢复自由状态（unifiedValue清除攻击力上的所有修改器）
+ * 2. 按ID移除连接的修改器
+ * 3. 按标签移除连接的修改器
+ * 4. 断开连接后修改器不再恢复
+ */
+public class StatGraphTest {
+
+    public static void main(String[] args) {
+        boolean ok = true;
+
+        Pet pet = new BlackTaurus(5, Attributes.Balanced, null);
+        double attack = pet.getCurrentAttack();
+        double bonus = pet.getMaxHP() * 0.1;
+        StatGraph graph = pet.getStat().getStatGraph();
+        StatGraph.Link link = graph.link(pet.getStat().getHP().getBaseMaxValue(), pet.getStat().getBaseAttack(),
+                ValueModifier.ModifierType.ADDITIVE, "hpToAttack", "talent", hp -> hp * 0.1);
+        ok &= check("建立连接", pet.getCurrentAttack(), attack + bonus);
+
+        pet.setStatue(Pet.Statue.Free);
+        ok &= check("恢复自由状态后", pet.getCurrentAttack(), attack + bonus);
+
+        pet.getStat().getBaseAttack().removeModifier("hpToAttack");
+        ok &= check("按ID移除后", pet.getCurrentAttack(), attack + bonus);
+
+        pet.getStat().getBaseAttack().removeModifiersByTag("talent");
+        ok &= check("按标签移除后", pet.getCurrentAttack(), attack + bonus);
+
+        pet.addBaseMaxHP(100, "测试");
+        ok &= check("HP上限变化后", pet.getCurrentAttack(), attack + (pet.getMaxHP() * 0.1));
+
+        link.remove();
+        ok &= check("断开连接后", pet.getCurrentAttack(), attack);
+        pet.setStatue(Pet.Statue.Free);
+        ok &= check("断开连接后恢复自由状态", pet.getCurrentAttack(), attack);
+
+        System.out.println(ok ? "通过" : "失败");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(String name, double actual, double expected) {
+        boolean passed = Math.abs(actual - expected) < 1e-9;
+        System.out.printf("%s: 攻击力 %.2f (预期 %.2f)%s%n", name, actual, expected, passed ? "" : " 失败");
+        return passed;
+    }
+}
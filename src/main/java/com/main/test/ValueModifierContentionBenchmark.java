@@ -0,0 +1,97 @@
+package com.main.test;
+
+import com.main.classes.ConcurrentValueModifier;
+import com.main.classes.ValueModifier;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ValueModifier与ConcurrentValueModifier的读写吞吐量对比
+ * ValueModifier只能单线程使用，作为基准；ConcurrentValueModifier分别测量无竞争、一个写线程加多个读线程、多个写线程的情况
+ */
+public class ValueModifierContentionBenchmark {
+    private static final long DURATION_MILLIS = 1000;
+    private static final int MODIFIER_COUNT = 32;
+
+    public static void main(String[] args) throws InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("处理器数: %d, 每项测量: %dms%n", cores, DURATION_MILLIS);
+
+        for (int round = 0; round < 2; round++) {
+            System.out.println(round == 0 ? "---- 预热 ----" : "---- 测量 ----");
+            run("ValueModifier 单线程", prepare(new ValueModifier(100.0)), 1, 0);
+            run("ConcurrentValueModifier 单线程", prepare(new ConcurrentValueModifier(100.0)), 1, 0);
+            run("ConcurrentValueModifier 1写 " + Math.max(1, cores - 1) + "读",
+                    prepare(new ConcurrentValueModifier(100.0)), 1, Math.max(1, cores - 1));
+            run("ConcurrentValueModifier " + Math.max(2, cores / 2) + "写 " + Math.max(2, cores / 2) + "读",
+                    prepare(new ConcurrentValueModifier(100.0)), Math.max(2, cores / 2), Math.max(2, cores / 2));
+        }
+    }
+
+    private static ValueModifier prepare(ValueModifier value) {
+        for (int i = 0; i < MODIFIER_COUNT; i++) {
+            value.addAdditiveModifier("add" + i, i, "bench.add");
+            value.addMultiplicativeModifier("mult" + i, 0.01 * i, "bench.mult");
+        }
+        return value;
+    }
+
+    /**
+     * 写线程反复替换同一个修改器，读线程反复读取最终值；只有一个线程时读写交替进行
+     */
+    private static void run(String name, ValueModifier value, int writers, int readers) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder writes = new LongAdder();
+        LongAdder reads = new LongAdder();
+        DoubleAdder sink = new DoubleAdder();
+
+        Thread[] threads = new Thread[writers + readers];
+        for (int w = 0; w < writers; w++) {
+            String id = "writer" + w;
+            boolean alsoRead = readers == 0;
+            threads[w] = new Thread(() -> {
+                long w1 = 0;
+                long r1 = 0;
+                double local = 0;
+                while (running.get()) {
+                    value.addAdditiveModifier(id, w1 & 15, "bench.write");
+                    w1++;
+                    if (alsoRead) {
+                        local += value.getFinalValue();
+                        r1++;
+                    }
+                }
+                writes.add(w1);
+                reads.add(r1);
+                sink.add(local);
+            });
+        }
+        for (int r = 0; r < readers; r++) {
+            threads[writers + r] = new Thread(() -> {
+                long r1 = 0;
+                double local = 0;
+                while (running.get()) {
+                    local += value.getFinalValue();
+                    r1++;
+                }
+                reads.add(r1);
+                sink.add(local);
+            });
+        }
+
+        for (Thread t : threads) {
+            t.start();
+        }
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        double seconds = DURATION_MILLIS / 1000.0;
+        System.out.printf("%-40s 写: %,12.0f 次/秒  读: %,14.0f 次/秒  (%s)%n",
+                name, writes.sum() / seconds, reads.sum() / seconds, sink.sum() != 0 ? "ok" : "-");
+    }
+}